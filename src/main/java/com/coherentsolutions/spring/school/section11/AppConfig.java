@@ -1,14 +1,21 @@
 package com.coherentsolutions.spring.school.section11;
 // File: com/coherentsolutions/spring/school/section11/AppConfig.java
 
+import com.coherentsolutions.spring.school.support.pool.PooledScope;
+import com.coherentsolutions.spring.school.support.pool.PooledScopeConfig;
+import com.coherentsolutions.spring.school.support.scope.CustomScopesConfig;
+import com.coherentsolutions.spring.school.support.scope.ScopedValueScope;
+import com.coherentsolutions.spring.school.support.scope.ThreadScope;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Scope;
 import org.springframework.web.context.annotation.RequestScope;
 import org.springframework.web.context.annotation.SessionScope;
 
 
 @Configuration
+@Import({PooledScopeConfig.class, CustomScopesConfig.class})
 public class AppConfig {
 
     @Bean
@@ -23,6 +30,12 @@ public class AppConfig {
         return new MyClass("Prototype Bean");
     }
 
+    @Bean
+    @Scope(PooledScope.NAME)
+    public MyClass pooledBean() {
+        return new MyClass("Pooled Bean");
+    }
+
     @Bean
     @RequestScope
     //@Scope("request")
@@ -37,9 +50,16 @@ public class AppConfig {
         return new MyClass("Session Bean");
     }
 
+    // Replaces the Portlet-only "globalSession" scope, which does not exist in Spring 6
+    @Bean
+    @Scope(ThreadScope.NAME)
+    public MyClass threadBean() {
+        return new MyClass("Thread Bean");
+    }
+
     @Bean
-    @Scope("globalSession")
-    public MyClass globalSessionBean() {
-        return new MyClass("Global Session Bean");
+    @Scope(ScopedValueScope.NAME)
+    public MyClass scopedValueBean() {
+        return new MyClass("Scoped Value Bean");
     }
 }
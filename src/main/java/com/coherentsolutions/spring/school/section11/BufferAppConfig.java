@@ -0,0 +1,27 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.coherentsolutions.spring.school.support.pool.PooledScope;
+import com.coherentsolutions.spring.school.support.pool.PooledScopeConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Scope;
+
+@Configuration
+@Import(PooledScopeConfig.class)
+public class BufferAppConfig {
+
+    private static final int CAPACITY = 256 * 1024;
+
+    @Bean
+    @Scope("prototype")
+    public ScratchBuffer prototypeBuffer() {
+        return new ScratchBuffer(CAPACITY);
+    }
+
+    @Bean
+    @Scope(PooledScope.NAME)
+    public ScratchBuffer pooledBuffer() {
+        return new ScratchBuffer(CAPACITY);
+    }
+}
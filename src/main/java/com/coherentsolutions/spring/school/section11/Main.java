@@ -2,10 +2,12 @@
 package com.coherentsolutions.spring.school.section11;
 
 import org.springframework.context.ApplicationContext;
+import com.coherentsolutions.spring.school.support.pool.PooledScope;
+import com.coherentsolutions.spring.school.support.scope.ScopedValueScope;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         ApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class);
 
         MyClass singleton1 = context.getBean("singletonBean", MyClass.class);
@@ -22,9 +24,43 @@ public class Main {
         prototype2.printName();
         System.out.println("Same instance? " + (prototype1 == prototype2));
 
-        // For RequestScope, SessionScope, and GlobalSessionScope beans, use a Spring web application context
-        // Below examples only work in a Spring web application
-        // Uncomment and run in a web environment
+        PooledScope pooledScope = context.getBean(PooledScope.class);
+        MyClass pooled1 = context.getBean("pooledBean", MyClass.class);
+        System.out.println("Pooled Bean:");
+        pooled1.printName();
+        // Returned instances are handed out again instead of creating new ones
+        pooledScope.release("pooledBean", pooled1);
+        MyClass pooled2 = context.getBean("pooledBean", MyClass.class);
+        pooled2.printName();
+        System.out.println("Same instance? " + (pooled1 == pooled2));
+        pooledScope.release("pooledBean", pooled2);
+
+        MyClass thread1 = context.getBean("threadBean", MyClass.class);
+        MyClass thread2 = context.getBean("threadBean", MyClass.class);
+        MyClass[] otherThread = new MyClass[1];
+        Thread other = Thread.ofVirtual().start(() -> otherThread[0] = context.getBean("threadBean", MyClass.class));
+        other.join();
+        System.out.println("Thread Bean:");
+        thread1.printName();
+        System.out.println("Same instance on one thread? " + (thread1 == thread2));
+        System.out.println("Same instance on another thread? " + (thread1 == otherThread[0]));
+
+        ScopedValueScope scopedValueScope = context.getBean(ScopedValueScope.class);
+        MyClass[] scoped = new MyClass[3];
+        scopedValueScope.run(() -> {
+            scoped[0] = context.getBean("scopedValueBean", MyClass.class);
+            scoped[1] = context.getBean("scopedValueBean", MyClass.class);
+        });
+        // A new extent gets new beans
+        scopedValueScope.run(() -> scoped[2] = context.getBean("scopedValueBean", MyClass.class));
+        System.out.println("Scoped Value Bean:");
+        scoped[0].printName();
+        System.out.println("Same instance in one extent? " + (scoped[0] == scoped[1]));
+        System.out.println("Same instance in another extent? " + (scoped[0] == scoped[2]));
+
+        // RequestScope and SessionScope beans only resolve while a request is being handled;
+        // WebMainApp serves them from an embedded HTTP server
+        // Below examples fail here because no request is bound to this thread
         /*
         MyClass request1 = context.getBean("requestBean", MyClass.class);
         MyClass request2 = context.getBean("requestBean", MyClass.class);
@@ -39,13 +75,6 @@ public class Main {
         session1.printName();
         session2.printName();
         System.out.println("Same instance? " + (session1 == session2));
-
-        MyClass globalSession1 = context.getBean("globalSessionBean", MyClass.class);
-        MyClass globalSession2 = context.getBean("globalSessionBean", MyClass.class);
-        System.out.println("Global Session Bean:");
-        globalSession1.printName();
-        globalSession2.printName();
-        System.out.println("Same instance? " + (globalSession1 == globalSession2));
         */
 
         ((AnnotationConfigApplicationContext) context).close();
@@ -1,7 +1,12 @@
 // File: com/coherentsolutions/spring/school/section11/MyClass.java
 package com.coherentsolutions.spring.school.section11;
 
-public class MyClass {
+import java.io.Serializable;
+
+// Serializable, so that session-scoped instances can be passivated
+public class MyClass implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final String name;
 
@@ -9,6 +14,10 @@ public class MyClass {
         this.name = name;
     }
 
+    public String getName() {
+        return name;
+    }
+
     public void printName() {
         System.out.println("Bean Name: " + name);
     }
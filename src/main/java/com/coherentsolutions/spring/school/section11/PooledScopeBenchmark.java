@@ -0,0 +1,81 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.coherentsolutions.spring.school.support.pool.PooledScope;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Several threads each fetch a buffer, fill a little of it and let it go, over and over
+public class PooledScopeBenchmark {
+
+    private static final int THREADS = 4;
+    private static final int ITERATIONS = 50_000;
+    private static final byte[] PAYLOAD = new byte[512];
+
+    public static void main(String[] args) throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(BufferAppConfig.class)) {
+            PooledScope pooledScope = context.getBean(PooledScope.class);
+            Callable<Integer> prototype = () -> {
+                ScratchBuffer buffer = context.getBean("prototypeBuffer", ScratchBuffer.class);
+                buffer.append(PAYLOAD);
+                return buffer.checksum();
+            };
+            Callable<Integer> pooled = () -> {
+                ScratchBuffer buffer = context.getBean("pooledBuffer", ScratchBuffer.class);
+                try {
+                    buffer.append(PAYLOAD);
+                    return buffer.checksum();
+                } finally {
+                    pooledScope.release("pooledBuffer", buffer);
+                }
+            };
+            // The first round warms up
+            for (int round = 1; round <= 3; round++) {
+                measure("Round " + round + ", prototype", prototype);
+                measure("Round " + round + ", pooled", pooled);
+            }
+        }
+    }
+
+    private static void measure(String label, Callable<Integer> use) throws Exception {
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(threads.submit(() -> {
+                int checksum = 0;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    checksum += use.call();
+                }
+                return checksum;
+            }));
+        }
+        for (Future<Integer> result : results) {
+            result.get();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        threads.shutdown();
+        System.out.printf("%s: %.0f ns per use, %d collections taking %d ms%n", label,
+                (double) elapsedNanos / ((long) ITERATIONS * THREADS),
+                gcCount() - gcCount, gcMillis() - gcMillis);
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
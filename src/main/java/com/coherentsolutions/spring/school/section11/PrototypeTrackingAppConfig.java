@@ -0,0 +1,24 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.coherentsolutions.spring.school.support.prototype.PrototypeTrackerConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Scope;
+
+@Configuration
+@Import({AppConfig.class, PrototypeTrackerConfig.class})
+public class PrototypeTrackingAppConfig {
+
+    @Bean
+    @Scope("prototype")
+    public TempFile tempFile() {
+        return new TempFile();
+    }
+
+    @Bean(initMethod = "customInit", destroyMethod = "customDestroy")
+    @Scope("prototype")
+    public com.coherentsolutions.spring.school.section21.custom.MyClass lifecycleBean() {
+        return new com.coherentsolutions.spring.school.section21.custom.MyClass();
+    }
+}
@@ -0,0 +1,38 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.coherentsolutions.spring.school.support.prototype.PrototypeTracker;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class PrototypeTrackingMainApp {
+    public static void main(String[] args) throws InterruptedException {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(PrototypeTrackingAppConfig.class);
+        PrototypeTracker tracker = context.getBean(PrototypeTracker.class);
+
+        // Created and dropped, as prototypes usually are
+        for (int i = 0; i < 10_000; i++) {
+            context.getBean("prototypeBean", MyClass.class);
+        }
+
+        TempFile destroyed = context.getBean(TempFile.class);
+        TempFile dropped = context.getBean(TempFile.class);
+        TempFile kept = context.getBean(TempFile.class);
+        context.getBeanFactory().destroyBean("tempFile", destroyed);
+        System.out.println("Destroyed temp file exists? " + Files.exists(destroyed.getPath()));
+        Path droppedPath = dropped.getPath();
+        dropped = null;
+        Object lifecycleBean = context.getBean("lifecycleBean");
+
+        System.gc();
+        Thread.sleep(200);
+        System.out.println("Dropped temp file exists after GC? " + Files.exists(droppedPath));
+        tracker.getStats().forEach(stats -> System.out.println("Live prototypes: " + stats));
+
+        // Destroys the prototypes that are still reachable, such as the kept temp file
+        context.close();
+        System.out.println("Kept temp file exists after close? " + Files.exists(kept.getPath()));
+        System.out.println("Destroyed at close: " + lifecycleBean);
+    }
+}
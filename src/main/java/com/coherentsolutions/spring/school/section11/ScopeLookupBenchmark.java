@@ -0,0 +1,78 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.coherentsolutions.spring.school.support.scope.ScopedValueScope;
+import com.coherentsolutions.spring.school.support.scope.ThreadScope;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cost of getBean per scope on one thread, then of one lookup on each of a million virtual threads
+public class ScopeLookupBenchmark {
+
+    private static final int LOOKUPS = 1_000_000;
+    private static final int VIRTUAL_THREADS = 1_000_000;
+
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class)) {
+            ScopedValueScope scopedValueScope = context.getBean(ScopedValueScope.class);
+            ThreadScope threadScope = context.getBean(ThreadScope.class);
+
+            // The first round warms up
+            for (int round = 1; round <= 3; round++) {
+                System.out.println("Round " + round + ":");
+                measure("singleton", () -> lookUp(context, "singletonBean", LOOKUPS));
+                measure("prototype", () -> lookUp(context, "prototypeBean", LOOKUPS));
+                measure("thread", () -> lookUp(context, "threadBean", LOOKUPS));
+                measure("scoped-value, one extent", () -> scopedValueScope.run(() -> lookUp(context, "scopedValueBean", LOOKUPS)));
+                measure("scoped-value, new extent and bean per lookup", () -> {
+                    for (int i = 0; i < LOOKUPS; i++) {
+                        scopedValueScope.run(() -> lookUp(context, "scopedValueBean", 1));
+                    }
+                });
+            }
+
+            LongAdder leftBound = new LongAdder();
+            long start = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < VIRTUAL_THREADS; i++) {
+                    executor.submit(() -> lookUp(context, "threadBean", 1));
+                }
+            }
+            System.out.printf("thread scope on %,d virtual threads: %d ms, %,d threads still holding beans%n",
+                    VIRTUAL_THREADS, (System.nanoTime() - start) / 1_000_000, threadScope.getLiveThreadCount());
+            System.gc();
+            Thread.sleep(500);
+            System.out.printf("  after a garbage collection: %,d%n", threadScope.getLiveThreadCount());
+
+            start = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < VIRTUAL_THREADS; i++) {
+                    executor.submit(() -> {
+                        scopedValueScope.run(() -> lookUp(context, "scopedValueBean", 1));
+                        if (scopedValueScope.isBound()) {
+                            leftBound.increment();
+                        }
+                    });
+                }
+            }
+            System.out.printf("scoped-value scope on %,d virtual threads: %d ms, %d bindings left behind%n",
+                    VIRTUAL_THREADS, (System.nanoTime() - start) / 1_000_000, leftBound.sum());
+        }
+    }
+
+    private static void lookUp(AnnotationConfigApplicationContext context, String beanName, int lookups) {
+        for (int i = 0; i < lookups; i++) {
+            sink += System.identityHashCode(context.getBean(beanName));
+        }
+    }
+
+    private static void measure(String label, Runnable lookups) {
+        long start = System.nanoTime();
+        lookups.run();
+        System.out.printf("  %s: %.1f ns per lookup%n", label, (double) (System.nanoTime() - start) / LOOKUPS);
+    }
+}
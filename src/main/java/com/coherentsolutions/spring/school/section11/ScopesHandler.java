@@ -0,0 +1,30 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// A singleton holding scoped proxies; each call resolves the bean of the current request or session
+public class ScopesHandler implements HttpHandler {
+
+    private final MyClass requestBean;
+    private final MyClass sessionBean;
+
+    public ScopesHandler(MyClass requestBean, MyClass sessionBean) {
+        this.requestBean = requestBean;
+        this.sessionBean = sessionBean;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String body = "request=" + requestBean + ", again=" + requestBean + ", session=" + sessionBean + "\n";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.coherentsolutions.spring.school.support.pool.Resettable;
+
+import java.util.Arrays;
+
+// Expensive to create: every new instance allocates the whole buffer
+public class ScratchBuffer implements Resettable {
+
+    private final byte[] data;
+    private int length;
+
+    public ScratchBuffer(int capacity) {
+        this.data = new byte[capacity];
+    }
+
+    public void append(byte[] bytes) {
+        System.arraycopy(bytes, 0, data, length, bytes.length);
+        length += bytes.length;
+    }
+
+    public int checksum() {
+        int checksum = 0;
+        for (int i = 0; i < length; i++) {
+            checksum = 31 * checksum + data[i];
+        }
+        return checksum;
+    }
+
+    // Only the used part needs clearing
+    @Override
+    public void reset() {
+        Arrays.fill(data, 0, length, (byte) 0);
+        length = 0;
+    }
+}
@@ -0,0 +1,17 @@
+package com.coherentsolutions.spring.school.section11;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.context.annotation.SessionScope;
+
+@Configuration
+@Import(WebAppConfig.class)
+public class SessionAppConfig {
+
+    @Bean
+    @SessionScope
+    public ShoppingCart shoppingCart() {
+        return new ShoppingCart();
+    }
+}
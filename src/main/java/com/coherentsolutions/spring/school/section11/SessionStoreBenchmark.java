@@ -0,0 +1,78 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.coherentsolutions.spring.school.support.metrics.LatencyHistogram;
+import com.coherentsolutions.spring.school.support.web.ExchangeRequestAttributes;
+import com.coherentsolutions.spring.school.support.web.SessionStore;
+import com.coherentsolutions.spring.school.support.web.ShardedSessionStore;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+// Many sessions in process, once with everything on the heap and once within a small memory budget
+public class SessionStoreBenchmark {
+
+    private static final int SESSIONS = 100_000;
+    private static final int REVISITS = 20_000;
+    private static final int ITEMS_PER_CART = 10;
+
+    public static void main(String[] args) {
+        // Set before the first server is created, which is when the JDK reads it
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        run("Unbounded", Long.MAX_VALUE);
+        run("16 MiB budget", 16L * 1024 * 1024);
+    }
+
+    private static void run(String label, long memoryBudgetBytes) {
+        System.setProperty("session.memory-budget-bytes", Long.toString(memoryBudgetBytes));
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(SessionAppConfig.class)) {
+            ShardedSessionStore sessions = (ShardedSessionStore) context.getBean(SessionStore.class);
+            ShoppingCart cart = context.getBean(ShoppingCart.class);
+
+            String[] sessionIds = new String[SESSIONS];
+            long start = System.nanoTime();
+            for (int i = 0; i < SESSIONS; i++) {
+                int session = i;
+                sessionIds[i] = handle(sessions, null, () -> {
+                    for (int item = 0; item < ITEMS_PER_CART; item++) {
+                        cart.add("Session " + session + " item " + item + " with a description of some length");
+                    }
+                });
+            }
+            long createMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // Returning users; with a budget most of them come back from disk
+            LatencyHistogram revisits = new LatencyHistogram();
+            Random random = new Random(42);
+            for (int i = 0; i < REVISITS; i++) {
+                String sessionId = sessionIds[random.nextInt(SESSIONS)];
+                long requestStart = System.nanoTime();
+                handle(sessions, sessionId, () -> cart.add("Another item"));
+                revisits.record(System.nanoTime() - requestStart);
+            }
+
+            System.gc();
+            long heapMiB = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / (1024 * 1024);
+            System.out.println(label + ": created " + SESSIONS + " sessions in " + createMillis + " ms, heap used "
+                    + heapMiB + " MiB");
+            System.out.println("  revisits: " + revisits.snapshot());
+        }
+    }
+
+    // One request: binds the scopes, runs the work and returns the id of the session it used
+    private static String handle(SessionStore sessions, String sessionId, Runnable work) {
+        String[] createdId = new String[1];
+        ExchangeRequestAttributes attributes = new ExchangeRequestAttributes(sessionId, sessions,
+                session -> createdId[0] = session.getId());
+        RequestContextHolder.setRequestAttributes(attributes);
+        try {
+            work.run();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            attributes.requestCompleted();
+        }
+        return createdId[0] != null ? createdId[0] : sessionId;
+    }
+}
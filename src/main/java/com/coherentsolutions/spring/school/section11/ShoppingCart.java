@@ -0,0 +1,20 @@
+package com.coherentsolutions.spring.school.section11;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+// Session state of a realistic size, a few hundred bytes to a few kilobytes
+public class ShoppingCart implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<String> items = new ArrayList<>();
+
+    public void add(String item) {
+        items.add(item);
+    }
+
+    public int size() {
+        return items.size();
+    }
+}
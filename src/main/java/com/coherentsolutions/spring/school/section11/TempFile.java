@@ -0,0 +1,45 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.coherentsolutions.spring.school.support.prototype.Reclaimable;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// A prototype holding a resource that outlives the JVM unless someone deletes it
+public class TempFile implements Reclaimable {
+
+    private Path path;
+
+    @PostConstruct
+    public void create() throws IOException {
+        path = Files.createTempFile("prototype-", ".tmp");
+    }
+
+    // Runs before the reclaim action deletes the file; without CREATE it fails if the file is gone
+    @PreDestroy
+    public void flush() throws IOException {
+        Files.writeString(path, "closed\n", StandardOpenOption.APPEND);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public Runnable reclaimAction() {
+        // Captures the path only, not this bean
+        Path file = path;
+        return () -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
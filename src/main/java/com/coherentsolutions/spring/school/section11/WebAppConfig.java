@@ -0,0 +1,36 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.coherentsolutions.spring.school.support.web.EmbeddedWebConfig;
+import com.coherentsolutions.spring.school.support.web.ScopedHttpServer;
+import com.coherentsolutions.spring.school.support.web.SessionStore;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+@Import({AppConfig.class, EmbeddedWebConfig.class})
+public class WebAppConfig {
+
+    @Bean
+    public ScopesHandler scopesHandler(@Qualifier("requestBean") MyClass requestBean,
+                                       @Qualifier("sessionBean") MyClass sessionBean) {
+        return new ScopesHandler(requestBean, sessionBean);
+    }
+
+    @Bean
+    public ScopedHttpServer httpServer(@Value("${server.port:0}") int port, SessionStore sessionStore,
+                                       ScopesHandler scopesHandler) {
+        byte[] ok = "ok\n".getBytes(StandardCharsets.UTF_8);
+        return new ScopedHttpServer(port, sessionStore)
+                .addHandler("/scopes", scopesHandler)
+                // Touches no scoped bean; the baseline for the benchmark
+                .addHandler("/plain", exchange -> {
+                    exchange.sendResponseHeaders(200, ok.length);
+                    exchange.getResponseBody().write(ok);
+                });
+    }
+}
@@ -0,0 +1,31 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.coherentsolutions.spring.school.support.web.ScopedHttpServer;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+public class WebMainApp {
+    public static void main(String[] args) throws Exception {
+        // Responses go out without waiting for a delayed ACK; see ScopedHttpServer
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(WebAppConfig.class)) {
+            URI uri = URI.create("http://localhost:" + context.getBean(ScopedHttpServer.class).getPort() + "/scopes");
+
+            // Each client keeps its own session cookie
+            for (int client = 1; client <= 2; client++) {
+                HttpClient httpClient = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+                for (int request = 1; request <= 2; request++) {
+                    HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(uri).build(),
+                            HttpResponse.BodyHandlers.ofString());
+                    System.out.print("Client " + client + ", request " + request + ": " + response.body());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.coherentsolutions.spring.school.section11;
+
+import com.coherentsolutions.spring.school.support.metrics.LatencyHistogram;
+import com.coherentsolutions.spring.school.support.web.ExchangeRequestAttributes;
+import com.coherentsolutions.spring.school.support.web.ScopedHttpServer;
+import com.coherentsolutions.spring.school.support.web.SessionStore;
+import com.coherentsolutions.spring.school.support.web.WebSession;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Per-request cost of scoped proxies: first without the network, then through the embedded server
+public class WebScopeBenchmark {
+
+    private static final int REQUESTS = 200_000;
+    private static final int CLIENTS = 64;
+    private static final int REQUESTS_PER_CLIENT = 1_000;
+
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        // Without it every keep-alive round trip measures the 40 ms delayed ACK; see ScopedHttpServer
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(WebAppConfig.class)) {
+            MyClass singletonBean = context.getBean("singletonBean", MyClass.class);
+            MyClass requestBean = context.getBean("requestBean", MyClass.class);
+            MyClass sessionBean = context.getBean("sessionBean", MyClass.class);
+            SessionStore sessions = context.getBean(SessionStore.class);
+            WebSession session = sessions.create();
+            sessions.release(session);
+
+            // The first round warms up
+            for (int round = 1; round <= 3; round++) {
+                System.out.println("Round " + round + ", in process:");
+                measure("binding only", sessions, session, () -> sink += singletonBean.getName().length());
+                measure("request-scoped proxy", sessions, session, () -> sink += requestBean.getName().length());
+                measure("request- and session-scoped proxies", sessions, session, () -> {
+                    sink += requestBean.getName().length();
+                    sink += sessionBean.getName().length();
+                });
+            }
+
+            String base = "http://localhost:" + context.getBean(ScopedHttpServer.class).getPort();
+            for (int round = 1; round <= 3; round++) {
+                System.out.println("Round " + round + ", over HTTP with " + CLIENTS + " clients:");
+                load("/plain", URI.create(base + "/plain"));
+                load("/scopes", URI.create(base + "/scopes"));
+            }
+        }
+    }
+
+    private static void measure(String label, SessionStore sessions, WebSession session, Runnable handler) {
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            ExchangeRequestAttributes attributes = new ExchangeRequestAttributes(session.getId(), sessions, created -> {
+            });
+            RequestContextHolder.setRequestAttributes(attributes);
+            try {
+                handler.run();
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+                attributes.requestCompleted();
+            }
+        }
+        System.out.printf("  %s: %.0f ns per request%n", label, (double) (System.nanoTime() - start) / REQUESTS);
+    }
+
+    private static void load(String label, URI uri) throws Exception {
+        LatencyHistogram latencies = new LatencyHistogram();
+        long start = System.nanoTime();
+        // One client for all, as a separate client per session would cost more than the server on a small machine
+        try (HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                results.add(clients.submit(() -> {
+                    HttpRequest request = HttpRequest.newBuilder(uri).build();
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        long requestStart = System.nanoTime();
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies.record(System.nanoTime() - requestStart);
+                        // Each simulated user keeps the session it was given, as a browser would
+                        String cookie = response.headers().firstValue("Set-Cookie").orElse(null);
+                        if (cookie != null) {
+                            request = HttpRequest.newBuilder(uri).header("Cookie", cookie.split(";")[0]).build();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("  %s: %.0f requests/s, %s%n", label, CLIENTS * REQUESTS_PER_CLIENT / seconds,
+                latencies.snapshot());
+    }
+}
@@ -0,0 +1,11 @@
+package com.coherentsolutions.spring.school.section21;
+
+import com.coherentsolutions.spring.school.section21.custom.AppConfig;
+import com.coherentsolutions.spring.school.support.profiling.LifecycleProfilerConfig;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+@Configuration
+@Import({AppConfig.class, LifecycleProfilerConfig.class})
+public class ProfiledAppConfig {
+}
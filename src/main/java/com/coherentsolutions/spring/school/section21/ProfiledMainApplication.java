@@ -0,0 +1,24 @@
+package com.coherentsolutions.spring.school.section21;
+
+import com.coherentsolutions.spring.school.section21.custom.MyClass;
+import com.coherentsolutions.spring.school.support.profiling.BeanLifecycleProfiler;
+import com.coherentsolutions.spring.school.support.profiling.BeanTiming;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+public class ProfiledMainApplication {
+    public static void main(String[] args) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(ProfiledAppConfig.class);
+        BeanLifecycleProfiler profiler = context.getBean(BeanLifecycleProfiler.class);
+
+        MyClass myBean = context.getBean(MyClass.class);
+        System.out.println("Bean from context: " + myBean);
+
+        context.close();
+
+        // @PostConstruct and @PreDestroy are timed apart from customInit and customDestroy
+        profiler.getTimings().stream()
+                .filter(timing -> timing.beanName().equals("myBean"))
+                .map(BeanTiming::toString)
+                .forEach(timing -> System.out.println("Lifecycle of " + timing));
+    }
+}
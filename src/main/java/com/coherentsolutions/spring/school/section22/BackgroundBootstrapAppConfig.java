@@ -0,0 +1,10 @@
+package com.coherentsolutions.spring.school.section22;
+
+import com.coherentsolutions.spring.school.support.bootstrap.BackgroundInitConfig;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+@Configuration
+@Import({BootstrapAppConfig.class, BackgroundInitConfig.class})
+public class BackgroundBootstrapAppConfig {
+}
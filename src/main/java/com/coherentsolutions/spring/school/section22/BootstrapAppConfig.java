@@ -0,0 +1,24 @@
+package com.coherentsolutions.spring.school.section22;
+
+import com.coherentsolutions.spring.school.section22.ex01database.PooledAppConfig;
+import com.coherentsolutions.spring.school.section22.ex03messagequeue.MessageQueueConnectionManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.nio.file.Path;
+
+@Configuration
+@Import(PooledAppConfig.class)
+public class BootstrapAppConfig {
+
+    @Bean
+    public MessageQueueConnectionManager ordersQueueManager() {
+        return new MessageQueueConnectionManager(10_000, Path.of("message-journal", "orders"));
+    }
+
+    @Bean
+    public MessageQueueConnectionManager auditQueueManager() {
+        return new MessageQueueConnectionManager(10_000, Path.of("message-journal", "audit"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.coherentsolutions.spring.school.section22;
+
+import com.coherentsolutions.spring.school.section22.ex01database.DatabaseConnectionManager;
+import com.coherentsolutions.spring.school.section22.ex03messagequeue.MessageQueueConnectionManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Run with -Xmx2g; on a small default heap the two parallel replays mostly wait for the garbage collector
+public class BootstrapMainApp {
+    public static void main(String[] args) throws Exception {
+        try {
+            // Fill both journals so that each queue manager has a replay to do on startup
+            try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(BootstrapAppConfig.class)) {
+                List<String> batch = Stream.generate(() -> "Event").limit(1_000).toList();
+                for (MessageQueueConnectionManager manager : context.getBeansOfType(MessageQueueConnectionManager.class).values()) {
+                    MessageQueueConnectionManager.Connection connection = manager.getConnection();
+                    connection.declareQueue("events", 500_000);
+                    for (int i = 0; i < 200; i++) {
+                        connection.sendBatch("events", batch);
+                    }
+                }
+            }
+
+            // The first round includes class loading and JIT warm-up
+            for (int round = 1; round <= 4; round++) {
+                startAndUse("Round " + round + ", sequential startup", BootstrapAppConfig.class);
+                startAndUse("Round " + round + ", background startup", BackgroundBootstrapAppConfig.class);
+            }
+        } finally {
+            deleteRecursively(Path.of("message-journal"));
+        }
+    }
+
+    private static void startAndUse(String label, Class<?> config) throws Exception {
+        long start = System.nanoTime();
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(config)) {
+            long refreshMillis = (System.nanoTime() - start) / 1_000_000;
+            // A proxy in background mode; its first call would wait if initialization were still running
+            DatabaseConnectionManager dbManager = context.getBean(DatabaseConnectionManager.class);
+            dbManager.executeUpdate("CREATE TABLE IF NOT EXISTS bootstrap_check (id INT)");
+            System.out.println(label + ": context refreshed in " + refreshMillis + " ms, "
+                    + dbManager.getClass().getSimpleName());
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (Files.exists(directory)) {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
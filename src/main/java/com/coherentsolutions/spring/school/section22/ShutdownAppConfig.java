@@ -0,0 +1,19 @@
+package com.coherentsolutions.spring.school.section22;
+
+import com.coherentsolutions.spring.school.section22.ex01database.PooledAppConfig;
+import com.coherentsolutions.spring.school.section22.ex02filehandling.AsyncAppConfig;
+import com.coherentsolutions.spring.school.section22.ex03messagequeue.MessageQueueConnectionManager;
+import com.coherentsolutions.spring.school.support.shutdown.ShutdownCoordinatorConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+@Configuration
+@Import({PooledAppConfig.class, AsyncAppConfig.class, ShutdownCoordinatorConfig.class})
+public class ShutdownAppConfig {
+
+    @Bean
+    public MessageQueueConnectionManager messageQueueConnectionManager() {
+        return new MessageQueueConnectionManager();
+    }
+}
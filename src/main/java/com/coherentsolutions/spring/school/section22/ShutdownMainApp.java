@@ -0,0 +1,79 @@
+package com.coherentsolutions.spring.school.section22;
+
+import com.coherentsolutions.spring.school.section22.ex01database.DatabaseConnectionManager;
+import com.coherentsolutions.spring.school.section22.ex02filehandling.FileHandler;
+import com.coherentsolutions.spring.school.section22.ex03messagequeue.MessageQueueConnectionManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Closes the context while all three resources are busy; compare the drain and close times to the total
+public class ShutdownMainApp {
+    public static void main(String[] args) throws Exception {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(ShutdownAppConfig.class);
+        DatabaseConnectionManager dbManager = context.getBean(DatabaseConnectionManager.class);
+        FileHandler fileHandler = context.getBean(FileHandler.class);
+        MessageQueueConnectionManager.Connection connection =
+                context.getBean(MessageQueueConnectionManager.class).getConnection();
+
+        dbManager.executeUpdate("CREATE TABLE IF NOT EXISTS shutdown_check (id INT)");
+        connection.declareQueue("orders", 1_000);
+        LongAdder consumed = new LongAdder();
+        // A slow consumer leaves a backlog to drain
+        connection.subscribe("orders", delivery -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumed.increment();
+        }, true);
+
+        LongAdder rejected = new LongAdder();
+        ExecutorService load = Executors.newVirtualThreadPerTaskExecutor();
+        load.submit(() -> {
+            try {
+                for (int i = 0; ; i++) {
+                    dbManager.executeUpdate("INSERT INTO shutdown_check VALUES (?)", i);
+                }
+            } catch (SQLException e) {
+                rejected.increment();
+            }
+            return null;
+        });
+        load.submit(() -> {
+            for (int i = 0; ; i++) {
+                if (fileHandler.writeData("Line " + i).isCompletedExceptionally()) {
+                    rejected.increment();
+                    return null;
+                }
+            }
+        });
+        load.submit(() -> {
+            try {
+                for (int i = 0; ; i++) {
+                    connection.send("orders", "Order " + i);
+                }
+            } catch (IllegalStateException e) {
+                rejected.increment();
+            }
+            return null;
+        });
+
+        Thread.sleep(500);
+        long start = System.nanoTime();
+        context.close();
+        System.out.println("Context closed in " + (System.nanoTime() - start) / 1_000_000 + " ms; "
+                + consumed.sum() + " messages consumed, " + rejected.sum() + " producers turned away");
+
+        load.shutdown();
+        load.awaitTermination(10, TimeUnit.SECONDS);
+        Files.deleteIfExists(Path.of("output-async.txt"));
+    }
+}
@@ -0,0 +1,359 @@
+package com.coherentsolutions.spring.school.section22.ex01database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of physical JDBC connections.
+ * <p>
+ * A {@link Semaphore} caps the number of connections handed out at once and implements the max wait.
+ * Idle connections sit in a lock-free deque used as a stack, so the most recently returned (and
+ * therefore most likely still alive) connection is reused first and the oldest ones drift to the tail
+ * where the evictor picks them up.
+ * <p>
+ * Callers receive a proxy; calling {@link Connection#close()} on it returns the physical connection
+ * to the pool instead of closing it.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final ConnectionPoolSettings settings;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+
+    private ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String username, String password, ConnectionPoolSettings settings) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.getMaxSize(), true);
+    }
+
+    public void start() throws SQLException {
+        for (int i = 0; i < settings.getMinIdle(); i++) {
+            idle.offerFirst(openPhysical());
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getEvictionIntervalMillis();
+        evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting at most {@link ConnectionPoolSettings#getMaxWaitMillis()}.
+     * The caller must close the returned connection to give it back.
+     */
+    public Connection borrow() throws SQLException {
+        return acquire().newHandle();
+    }
+
+    /**
+     * Runs {@code callback} against a cached prepared statement for {@code sql} on a borrowed
+     * connection. The statement stays open in the connection's cache for the next caller.
+     */
+    <T> T execute(String sql, Object[] params, StatementCallback<T> callback) throws SQLException {
+        PooledConnection pooled = acquire();
+        try {
+            PreparedStatement statement = pooled.statements.prepare(sql);
+            try {
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                return callback.doInStatement(statement);
+            } finally {
+                pooled.statements.release(statement);
+            }
+        } finally {
+            giveBack(pooled);
+        }
+    }
+
+    private PooledConnection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.getMaxWaitMillis(), TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLTimeoutException("Timed out after " + settings.getMaxWaitMillis()
+                        + " ms waiting for a connection (max size " + settings.getMaxSize() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = openPhysical();
+            }
+            activeConnections.incrementAndGet();
+            borrowCount.increment();
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isAlive(pooled)) {
+                return pooled;
+            }
+            validationFailures.increment();
+            discard(pooled);
+        }
+        return null;
+    }
+
+    private boolean isAlive(PooledConnection pooled) {
+        long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pooled.lastReturnedNanos);
+        if (idleMillis < settings.getValidationBypassMillis()) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(settings.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void giveBack(PooledConnection pooled) {
+        activeConnections.decrementAndGet();
+        boolean reusable = !closed;
+        if (reusable) {
+            try {
+                if (!pooled.physical.getAutoCommit()) {
+                    pooled.physical.rollback();
+                    pooled.physical.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                reusable = false;
+            }
+        }
+        if (reusable) {
+            pooled.lastReturnedNanos = System.nanoTime();
+            idle.offerFirst(pooled);
+            if (closed) {
+                // close() may have emptied the idle queue before the offer
+                discardIdle();
+            }
+        } else {
+            discard(pooled);
+        }
+        permits.release();
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.getIdleTimeoutMillis());
+        Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && totalConnections.get() > settings.getMinIdle()) {
+            PooledConnection pooled = oldestFirst.next();
+            // remove() loses the race against a concurrent borrower, which is exactly what we want
+            if (now - pooled.lastReturnedNanos > idleTimeoutNanos && idle.remove(pooled)) {
+                evictedCount.increment();
+                discard(pooled);
+            }
+        }
+    }
+
+    private PooledConnection openPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        totalConnections.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        pooled.statements.close();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.add(nanos);
+        long current;
+        while (nanos > (current = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(current, nanos)) {
+            // retry until we either win or someone else recorded a longer wait
+        }
+    }
+
+    public PoolMetrics getMetrics() {
+        long borrows = borrowCount.sum();
+        long waitNanos = totalWaitNanos.sum();
+        return new PoolMetrics(
+                activeConnections.get(),
+                idle.size(),
+                totalConnections.get(),
+                borrows,
+                borrows == 0 ? 0 : waitNanos / borrows,
+                maxWaitNanos.get(),
+                timeoutCount.sum(),
+                validationFailures.sum(),
+                evictedCount.sum(),
+                statementCacheHits.sum(),
+                statementCacheMisses.sum(),
+                statementCacheEvictions.sum());
+    }
+
+    /**
+     * Closes every idle connection. Connections still on loan are closed as they come back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        discardIdle();
+    }
+
+    private void discardIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    public record PoolMetrics(int active, int idle, int total, long borrowCount,
+                              long averageWaitNanos, long maxWaitNanos, long timeouts,
+                              long validationFailures, long evicted,
+                              long statementCacheHits, long statementCacheMisses,
+                              long statementCacheEvictions) {
+
+        @Override
+        public String toString() {
+            return "active=" + active + ", idle=" + idle + ", total=" + total
+                    + ", borrows=" + borrowCount
+                    + ", avgWait=" + TimeUnit.NANOSECONDS.toMicros(averageWaitNanos) + "us"
+                    + ", maxWait=" + TimeUnit.NANOSECONDS.toMicros(maxWaitNanos) + "us"
+                    + ", timeouts=" + timeouts
+                    + ", validationFailures=" + validationFailures
+                    + ", evicted=" + evicted
+                    + ", stmtCacheHits=" + statementCacheHits
+                    + ", stmtCacheMisses=" + statementCacheMisses
+                    + ", stmtCacheEvictions=" + statementCacheEvictions;
+        }
+    }
+
+    @FunctionalInterface
+    interface StatementCallback<T> {
+        T doInStatement(PreparedStatement statement) throws SQLException;
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    final class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        volatile long lastReturnedNanos = System.nanoTime();
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, settings.getStatementCacheSize(),
+                    statementCacheHits, statementCacheMisses, statementCacheEvictions);
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Per-loan view of a physical connection. Once closed, the handle refuses further use so a caller
+     * that kept a reference cannot touch a connection that now belongs to someone else.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        giveBack(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (returned ? ", returned" : "") + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
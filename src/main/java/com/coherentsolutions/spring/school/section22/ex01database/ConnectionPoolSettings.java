@@ -0,0 +1,82 @@
+package com.coherentsolutions.spring.school.section22.ex01database;
+
+/**
+ * Tuning knobs for {@link ConnectionPool}. Defaults are sized for a small local database.
+ */
+public class ConnectionPoolSettings {
+
+    private int maxSize = 10;
+    private int minIdle = 2;
+    private long maxWaitMillis = 5_000;
+    private long idleTimeoutMillis = 60_000;
+    private long evictionIntervalMillis = 30_000;
+    private int validationTimeoutSeconds = 2;
+    // Connections returned more recently than this are handed out again without an isValid() round trip
+    private long validationBypassMillis = 500;
+    // Prepared statements kept open per physical connection; 0 disables the cache
+    private int statementCacheSize = 64;
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public long getEvictionIntervalMillis() {
+        return evictionIntervalMillis;
+    }
+
+    public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+        this.evictionIntervalMillis = evictionIntervalMillis;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public long getValidationBypassMillis() {
+        return validationBypassMillis;
+    }
+
+    public void setValidationBypassMillis(long validationBypassMillis) {
+        this.validationBypassMillis = validationBypassMillis;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+}
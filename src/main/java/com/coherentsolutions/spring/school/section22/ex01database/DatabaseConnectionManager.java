@@ -1,28 +1,81 @@
 package com.coherentsolutions.spring.school.section22.ex01database;
 
+import com.coherentsolutions.spring.school.support.bootstrap.BackgroundInit;
+import com.coherentsolutions.spring.school.support.shutdown.GracefulShutdown;
+import com.coherentsolutions.spring.school.support.shutdown.InFlightTracker;
+
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Connecting is slow; contexts with background bootstrap initialize it off the startup thread
+@BackgroundInit
+public class DatabaseConnectionManager implements GracefulShutdown {
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final ConnectionPoolSettings poolSettings;
 
-public class DatabaseConnectionManager {
+    private final InFlightTracker inFlight = new InFlightTracker();
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     private Connection connection;
+    private ConnectionPool pool;
+
+    public DatabaseConnectionManager() {
+        this("jdbc:mysql://localhost:3306/hibernate_db", "bestuser", "bestuser", null);
+    }
+
+    /**
+     * @param poolSettings when {@code null} a single shared connection is used,
+     *                     otherwise connections are borrowed from a {@link ConnectionPool}
+     */
+    public DatabaseConnectionManager(String url, String username, String password,
+                                     ConnectionPoolSettings poolSettings) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.poolSettings = poolSettings;
+    }
 
     @PostConstruct
     public void init() {
         try {
-            // Initialize the database connection
-            connection = DriverManager.getConnection("jdbc:mysql://localhost:3306/hibernate_db", "bestuser", "bestuser");
-            System.out.println("Database connection initialized.");
+            if (poolSettings != null) {
+                // Initialize the connection pool
+                pool = new ConnectionPool(url, username, password, poolSettings);
+                pool.start();
+                System.out.println("Database connection pool initialized (max " + poolSettings.getMaxSize() + " connections).");
+            } else {
+                // Initialize the database connection
+                connection = DriverManager.getConnection(url, username, password);
+                System.out.println("Database connection initialized.");
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     @PreDestroy
+    @Override
     public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (pool != null) {
+            System.out.println("Database connection pool metrics: " + pool.getMetrics());
+            pool.close();
+            System.out.println("Database connection pool closed.");
+        }
         try {
             // Close the database connection
             if (connection != null && !connection.isClosed()) {
@@ -34,7 +87,96 @@ public class DatabaseConnectionManager {
         }
     }
 
-    public Connection getConnection() {
+    /**
+     * In pooled mode every call borrows a connection that the caller must close to return it;
+     * otherwise the single shared connection is returned and must not be closed.
+     */
+    public Connection getConnection() throws SQLException {
+        if (!inFlight.isAccepting()) {
+            throw new SQLException("Database connection manager is shutting down");
+        }
+        if (pool != null) {
+            return pool.borrow();
+        }
         return connection;
     }
+
+    /**
+     * Executes an INSERT, UPDATE or DELETE. In pooled mode the prepared statement is reused from the
+     * borrowed connection's statement cache.
+     */
+    public int executeUpdate(String sql, Object... params) throws SQLException {
+        return execute(sql, params, PreparedStatement::executeUpdate);
+    }
+
+    /**
+     * Executes a query and maps every row with {@code rowMapper}.
+     */
+    public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... params) throws SQLException {
+        return execute(sql, params, statement -> {
+            List<T> rows = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows.add(rowMapper.mapRow(resultSet));
+                }
+            }
+            return rows;
+        });
+    }
+
+    private <T> T execute(String sql, Object[] params,
+                          ConnectionPool.StatementCallback<T> callback) throws SQLException {
+        if (!inFlight.tryEnter()) {
+            throw new SQLException("Database connection manager is shutting down");
+        }
+        try {
+            if (pool != null) {
+                return pool.execute(sql, params, callback);
+            }
+            // The shared connection is not cached: statements are prepared and closed per call
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                return callback.doInStatement(statement);
+            }
+        } finally {
+            inFlight.exit();
+        }
+    }
+
+    @Override
+    public void stopAccepting() {
+        inFlight.stopAccepting();
+    }
+
+    /**
+     * Waits for running statements and, in pooled mode, for borrowed connections to be returned.
+     */
+    @Override
+    public long awaitDrained(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long statements = inFlight.awaitDrained(timeoutMillis);
+        if (pool == null) {
+            return statements;
+        }
+        // The pool does not signal returns; borrowed connections are few, so polling is enough
+        while (pool.getMetrics().active() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return Math.max(statements, pool.getMetrics().active());
+    }
+
+    public boolean isPooled() {
+        return pool != null;
+    }
+
+    public ConnectionPool.PoolMetrics getPoolMetrics() {
+        return pool != null ? pool.getMetrics() : null;
+    }
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T mapRow(ResultSet resultSet) throws SQLException;
+    }
 }
@@ -4,9 +4,10 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 
 public class MainApp {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws SQLException {
         ApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class);
         DatabaseConnectionManager dbManager = context.getBean(DatabaseConnectionManager.class);
 
@@ -0,0 +1,22 @@
+package com.coherentsolutions.spring.school.section22.ex01database;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+@Configuration
+@PropertySource("classpath:application-dev.properties")
+public class PooledAppConfig {
+
+    @Bean
+    public DatabaseConnectionManager databaseConnectionManager(@Value("${db.url}") String url,
+                                                               @Value("${db.username}") String username,
+                                                               @Value("${db.password}") String password) {
+        ConnectionPoolSettings settings = new ConnectionPoolSettings();
+        settings.setMaxSize(4);
+        settings.setMinIdle(1);
+        settings.setMaxWaitMillis(2_000);
+        return new DatabaseConnectionManager(url, username, password, settings);
+    }
+}
@@ -0,0 +1,39 @@
+package com.coherentsolutions.spring.school.section22.ex01database;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class PooledMainApp {
+    public static void main(String[] args) throws InterruptedException {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(PooledAppConfig.class);
+        DatabaseConnectionManager dbManager = context.getBean(DatabaseConnectionManager.class);
+
+        // 16 workers compete for 4 pooled connections
+        ExecutorService workers = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 200; i++) {
+            workers.submit(() -> {
+                try (Connection connection = dbManager.getConnection();
+                     Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery("SELECT 1")) {
+                    resultSet.next();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+
+        System.out.println("Pool metrics: " + dbManager.getPoolMetrics());
+
+        // Close the context to trigger @PreDestroy
+        context.close();
+    }
+}
@@ -0,0 +1,56 @@
+package com.coherentsolutions.spring.school.section22.ex01database;
+
+import java.sql.SQLException;
+
+/**
+ * Compares the statement-execution API with and without the per-connection statement cache
+ * against an embedded H2 database.
+ */
+public class StatementCacheBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:benchdb;DB_CLOSE_DELAY=-1";
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 200_000;
+
+    public static void main(String[] args) throws SQLException {
+        DatabaseConnectionManager setup = newManager(0);
+        setup.executeUpdate("CREATE TABLE IF NOT EXISTS users (id INT PRIMARY KEY, name VARCHAR(64))");
+        for (int i = 0; i < 1_000; i++) {
+            setup.executeUpdate("MERGE INTO users (id, name) KEY (id) VALUES (?, ?)", i, "user-" + i);
+        }
+
+        long uncached = run("statement cache disabled", newManager(0));
+        long cached = run("statement cache enabled ", newManager(64));
+        System.out.printf("Speed-up: %.2fx%n", (double) uncached / cached);
+
+        setup.close();
+    }
+
+    private static DatabaseConnectionManager newManager(int statementCacheSize) {
+        ConnectionPoolSettings settings = new ConnectionPoolSettings();
+        settings.setMaxSize(1);
+        settings.setMinIdle(1);
+        settings.setStatementCacheSize(statementCacheSize);
+        DatabaseConnectionManager manager = new DatabaseConnectionManager(URL, "sa", "", settings);
+        manager.init();
+        return manager;
+    }
+
+    private static long run(String label, DatabaseConnectionManager manager) throws SQLException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            lookup(manager, i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            lookup(manager, i);
+        }
+        long nanosPerOp = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+        System.out.println(label + ": " + nanosPerOp + " ns/op (" + manager.getPoolMetrics() + ")");
+        manager.close();
+        return nanosPerOp;
+    }
+
+    private static void lookup(DatabaseConnectionManager manager, int i) throws SQLException {
+        manager.query("SELECT name FROM users WHERE id = ?", resultSet -> resultSet.getString(1), i % 1_000);
+    }
+}
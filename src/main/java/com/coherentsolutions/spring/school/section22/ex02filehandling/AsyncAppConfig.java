@@ -0,0 +1,16 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class AsyncAppConfig {
+
+    @Bean
+    public FileHandler fileHandler() {
+        return new FileHandler(new GroupCommitWriter(Path.of("output-async.txt"),
+                DurabilityPolicy.FSYNC_INTERVAL, 100, 16 * 1024));
+    }
+}
@@ -0,0 +1,39 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncMainApp {
+    public static void main(String[] args) throws InterruptedException {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AsyncAppConfig.class);
+        FileHandler fileHandler = context.getBean(FileHandler.class);
+
+        // Many threads logging at once
+        int threads = 8;
+        int linesPerThread = 100_000;
+        ExecutorService loggers = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            loggers.submit(() -> {
+                CompletableFuture<Void> last = null;
+                for (int i = 0; i < linesPerThread; i++) {
+                    last = fileHandler.writeData("Thread " + thread + " line " + i);
+                }
+                // Lines are written in order, so the last future covers the whole thread
+                last.join();
+            });
+        }
+        loggers.shutdown();
+        loggers.awaitTermination(1, TimeUnit.MINUTES);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Wrote " + threads * linesPerThread + " lines in " + elapsedMillis + " ms");
+
+        // Close the context to trigger @PreDestroy
+        context.close();
+    }
+}
@@ -0,0 +1,17 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+
+@Configuration
+public class CompressedAppConfig {
+
+    @Bean
+    public FileHandler fileHandler() {
+        return new FileHandler(new CompressedBlockWriter(Path.of("output.txt.gz"), 256 * 1024,
+                Deflater.DEFAULT_COMPRESSION, 2));
+    }
+}
@@ -0,0 +1,129 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Random access into a file written by {@link CompressedBlockWriter}: the block index tells which
+ * block holds a line, and only that block is read and inflated.
+ * <p>
+ * The index is a sequence of fixed-size entries appended as blocks are written. After a crash it
+ * may end in a torn entry, or lack the entry of the last block; the reader uses the complete
+ * entries whose blocks lie within the file, so it sees every block up to the first one it cannot vouch for.
+ */
+public class CompressedBlockReader implements AutoCloseable {
+
+    static final int INDEX_ENTRY_BYTES = 24;
+
+    private final FileChannel channel;
+    private final List<BlockIndexEntry> index;
+
+    public CompressedBlockReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.index = readIndex(indexPathFor(path), channel.size());
+    }
+
+    static Path indexPathFor(Path path) {
+        return path.resolveSibling(path.getFileName() + ".idx");
+    }
+
+    /**
+     * Streams lines starting at {@code fromLine} (zero-based) to the end of the file.
+     */
+    public void readFrom(long fromLine, Consumer<String> sink) throws IOException {
+        int first = blockContaining(fromLine);
+        if (first < 0) {
+            return;
+        }
+        for (int i = first; i < index.size(); i++) {
+            BlockIndexEntry entry = index.get(i);
+            long line = entry.firstLine();
+            for (String text : readBlock(entry)) {
+                if (line++ >= fromLine) {
+                    sink.accept(text);
+                }
+            }
+        }
+    }
+
+    public List<String> readBlock(int blockNumber) throws IOException {
+        return readBlock(index.get(blockNumber));
+    }
+
+    private List<String> readBlock(BlockIndexEntry entry) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate(entry.compressedLength());
+        while (compressed.hasRemaining()) {
+            if (channel.read(compressed, entry.compressedOffset() + compressed.position()) < 0) {
+                throw new IOException("Unexpected end of file in block at offset " + entry.compressedOffset());
+            }
+        }
+        List<String> lines = new ArrayList<>(entry.lineCount());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(compressed.array())), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    // Binary search over the blocks' first line numbers
+    private int blockContaining(long line) {
+        int low = 0;
+        int high = index.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            BlockIndexEntry entry = index.get(mid);
+            if (line < entry.firstLine()) {
+                high = mid - 1;
+            } else if (line >= entry.firstLine() + entry.lineCount()) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public int getBlockCount() {
+        return index.size();
+    }
+
+    private static List<BlockIndexEntry> readIndex(Path indexPath, long fileSize) throws IOException {
+        long count = Files.size(indexPath) / INDEX_ENTRY_BYTES;
+        List<BlockIndexEntry> entries = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            for (long i = 0; i < count; i++) {
+                BlockIndexEntry entry = new BlockIndexEntry(in.readLong(), in.readInt(), in.readLong(), in.readInt());
+                if (entry.compressedOffset() + entry.compressedLength() > fileSize) {
+                    break;
+                }
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public record BlockIndexEntry(long compressedOffset, int compressedLength, long firstLine, int lineCount) {
+    }
+}
@@ -0,0 +1,214 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link FileOutput} that writes lines as a sequence of independently compressed blocks.
+ * <p>
+ * Lines are collected into an uncompressed block on the caller's thread (a copy under a short lock).
+ * A full block is compressed on a worker pool into its own GZIP member, so the file as a whole is
+ * still a valid {@code .gz} that standard tools can read, while {@link CompressedBlockReader} can
+ * use the sidecar {@code .idx} file to jump to any block and inflate only that one. Blocks may be
+ * compressed in parallel but are always written in order, each followed by its index entry, so after
+ * a crash the index still covers every block that made it into the file.
+ * <p>
+ * At most two blocks per compressor thread are sealed and not yet written; once that many are in
+ * flight, appending the line that fills the next block waits, and so do the other producers.
+ */
+public class CompressedBlockWriter implements FileOutput {
+
+    private final Path path;
+    private final int blockSize;
+    private final int level;
+    private final ExecutorService compressors;
+    // Sealed blocks, with their raw bytes, that have not been written yet
+    private final Semaphore blocksInFlight;
+
+    private final Object blockLock = new Object();
+    private ByteArrayOutputStream block;
+    private List<CompletableFuture<Void>> blockLines = new ArrayList<>();
+    private long firstLineOfBlock;
+    private long nextLine;
+
+    // Only touched by whichever thread runs the next link of writeChain
+    private FileChannel channel;
+    private FileChannel indexChannel;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(CompressedBlockReader.INDEX_ENTRY_BYTES);
+    private CompletableFuture<Void> writeChain = CompletableFuture.completedFuture(null);
+
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder blocksWritten = new LongAdder();
+
+    public CompressedBlockWriter(Path path, int blockSize, int level, int compressorThreads) {
+        this.path = path;
+        this.blockSize = blockSize;
+        this.level = level;
+        this.blocksInFlight = new Semaphore(2 * compressorThreads);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.compressors = Executors.newFixedThreadPool(compressorThreads, r -> {
+            Thread thread = new Thread(r, "block-compressor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        indexChannel = FileChannel.open(CompressedBlockReader.indexPathFor(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        block = new ByteArrayOutputStream(blockSize + 1024);
+    }
+
+    @Override
+    public CompletableFuture<Void> append(String line) {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        synchronized (blockLock) {
+            block.write(bytes, 0, bytes.length);
+            blockLines.add(written);
+            nextLine++;
+            if (block.size() >= blockSize) {
+                sealBlock();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Compresses and writes the current partial block without waiting for it to fill up.
+     */
+    @Override
+    public CompletableFuture<Void> flush() {
+        synchronized (blockLock) {
+            if (block.size() > 0) {
+                sealBlock();
+            }
+            return writeChain;
+        }
+    }
+
+    // Caller holds blockLock, which also keeps writeChain links in block order
+    private void sealBlock() {
+        byte[] raw = block.toByteArray();
+        List<CompletableFuture<Void>> lines = blockLines;
+        long firstLine = firstLineOfBlock;
+        int lineCount = lines.size();
+        block.reset();
+        blockLines = new ArrayList<>();
+        firstLineOfBlock = nextLine;
+
+        // Still holding blockLock, so every producer waits until the writer catches up
+        blocksInFlight.acquireUninterruptibly();
+        CompletableFuture<byte[]> compressed = CompletableFuture.supplyAsync(() -> compress(raw), compressors);
+        writeChain = writeChain
+                .thenCombine(compressed, (ignored, bytes) -> {
+                    write(bytes, raw.length, firstLine, lineCount);
+                    return (Void) null;
+                })
+                .whenComplete((ignored, failure) -> {
+                    blocksInFlight.release();
+                    for (CompletableFuture<Void> line : lines) {
+                        if (failure == null) {
+                            line.complete(null);
+                        } else {
+                            line.completeExceptionally(failure instanceof CompletionException ? failure.getCause() : failure);
+                        }
+                    }
+                })
+                // A failed block must not stop later blocks from being written
+                .exceptionally(failure -> null);
+    }
+
+    private byte[] compress(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private void write(byte[] compressed, int uncompressedLength, long firstLine, int lineCount) {
+        try {
+            // Taken from the file rather than counted, so a failed write does not shift later entries
+            long offset = channel.position();
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            // After the block itself, so an entry never points past the end of the file
+            indexEntry.clear();
+            indexEntry.putLong(offset).putInt(compressed.length).putLong(firstLine).putInt(lineCount).flip();
+            while (indexEntry.hasRemaining()) {
+                indexChannel.write(indexEntry);
+            }
+            bytesIn.add(uncompressedLength);
+            bytesOut.add(compressed.length);
+            blocksWritten.increment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the final partial block, waits for every pending block and forces the file and its index.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush().join();
+        } finally {
+            compressors.shutdown();
+        }
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            indexChannel.force(false);
+            indexChannel.close();
+        }
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public double getCompressionRatio() {
+        long out = bytesOut.sum();
+        return out == 0 ? 0 : (double) bytesIn.sum() / out;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompressedBlockWriter{%s, blocks=%d, bytesIn=%d, bytesOut=%d, ratio=%.1f:1}",
+                path, blocksWritten.sum(), bytesIn.sum(), bytesOut.sum(), getCompressionRatio());
+    }
+}
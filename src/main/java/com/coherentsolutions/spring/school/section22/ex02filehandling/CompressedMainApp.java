@@ -0,0 +1,27 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class CompressedMainApp {
+    public static void main(String[] args) throws IOException {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(CompressedAppConfig.class);
+        FileHandler fileHandler = context.getBean(FileHandler.class);
+
+        // Highly repetitive output compresses well; compression runs on the block-compressor threads
+        for (int i = 0; i < 1_000_000; i++) {
+            fileHandler.writeData("INFO  [worker-" + (i % 8) + "] processed request " + i + " in 3 ms");
+        }
+
+        // Close the context to trigger @PreDestroy
+        context.close();
+
+        // Jump straight to a line near the end without inflating the blocks before it
+        try (CompressedBlockReader reader = new CompressedBlockReader(Path.of("output.txt.gz"))) {
+            System.out.println("Blocks in file: " + reader.getBlockCount());
+            reader.readFrom(999_998, line -> System.out.println("Read back: " + line));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+/**
+ * When {@link GroupCommitWriter} forces written data to the storage device.
+ */
+public enum DurabilityPolicy {
+    // Leave it to the OS page cache; fastest, may lose recent lines on a crash
+    NO_FSYNC,
+    // fsync at most once per configured interval; bounded loss window
+    FSYNC_INTERVAL,
+    // fsync after every group commit, before the callers' futures complete
+    FSYNC_PER_BATCH
+}
@@ -1,18 +1,44 @@
 package com.coherentsolutions.spring.school.section22.ex02filehandling;
 
+import com.coherentsolutions.spring.school.support.shutdown.GracefulShutdown;
+import com.coherentsolutions.spring.school.support.shutdown.InFlightTracker;
+
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class FileHandler {
+public class FileHandler implements GracefulShutdown {
 
+    private final FileOutput output;
+    private final InFlightTracker inFlight = new InFlightTracker();
+    private final AtomicBoolean closed = new AtomicBoolean();
     private BufferedWriter writer;
 
+    public FileHandler() {
+        this(null);
+    }
+
+    /**
+     * @param output when {@code null} lines are written to {@code output.txt} on the caller's thread,
+     *               otherwise every line goes through the given output
+     */
+    public FileHandler(FileOutput output) {
+        this.output = output;
+    }
+
     @PostConstruct
     public void openFile() {
         try {
+            if (output != null) {
+                output.open();
+                output.append("File opened.");
+                System.out.println("File opened for writing via " + output.getClass().getSimpleName() + ".");
+                return;
+            }
             writer = new BufferedWriter(new FileWriter("output.txt"));
             writer.write("File opened.\n");
             System.out.println("File opened for writing.");
@@ -23,7 +49,16 @@ public class FileHandler {
 
     @PreDestroy
     public void closeFile() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
         try {
+            if (output != null) {
+                // Flushes everything still buffered before releasing the file
+                output.append("File closed.");
+                output.close();
+                System.out.println("File closed: " + output);
+            }
             if (writer != null) {
                 writer.write("File closed.\n");
                 writer.close();
@@ -34,13 +69,46 @@ public class FileHandler {
         }
     }
 
-    public void writeData(String data) {
-        try {
-            if (writer != null) {
-                writer.write(data + "\n");
+    /**
+     * @return a future that completes once the line is written, or exceptionally if writing failed
+     */
+    public CompletableFuture<Void> writeData(String data) {
+        if (!inFlight.tryEnter()) {
+            return CompletableFuture.failedFuture(new IOException("File handler is shutting down"));
+        }
+        if (output != null) {
+            return output.append(data).whenComplete((ignored, failure) -> inFlight.exit());
+        }
+        synchronized (this) {
+            try {
+                if (writer != null) {
+                    writer.write(data + "\n");
+                }
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            } finally {
+                inFlight.exit();
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
     }
+
+    @Override
+    public void stopAccepting() {
+        inFlight.stopAccepting();
+    }
+
+    // Lines count as in flight until the output reports them written
+    @Override
+    public long awaitDrained(long timeoutMillis) throws InterruptedException {
+        if (output != null) {
+            output.flush();
+        }
+        return inFlight.awaitDrained(timeoutMillis);
+    }
+
+    @Override
+    public void close() {
+        closeFile();
+    }
 }
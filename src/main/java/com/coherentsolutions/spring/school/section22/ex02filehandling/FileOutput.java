@@ -0,0 +1,33 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Alternative write path for {@link FileHandler}. Implementations must be safe to call from many threads.
+ */
+public interface FileOutput extends Closeable {
+
+    void open() throws IOException;
+
+    /**
+     * Appends one line. The future completes once the line has been written according to the
+     * output's policy, or completes exceptionally with the I/O failure.
+     */
+    CompletableFuture<Void> append(String line);
+
+    /**
+     * Asks the output to write whatever it is holding back without waiting for more lines.
+     * The future completes once it has done so.
+     */
+    default CompletableFuture<Void> flush() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Writes everything appended so far and releases the file.
+     */
+    @Override
+    void close() throws IOException;
+}
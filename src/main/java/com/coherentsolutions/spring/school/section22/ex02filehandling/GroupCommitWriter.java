@@ -0,0 +1,233 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import com.coherentsolutions.spring.school.support.concurrent.MpscRingBuffer;
+import com.coherentsolutions.spring.school.support.shutdown.InFlightTracker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous {@link FileOutput}: callers publish lines into a lock-free ring buffer and a single
+ * writer thread drains whatever has accumulated and writes it with one {@code write} call
+ * (a group commit), fsyncing according to the {@link DurabilityPolicy}.
+ * <p>
+ * When the ring is full, callers spin briefly and then park until the writer has made room.
+ */
+public class GroupCommitWriter implements FileOutput {
+
+    private static final int MAX_BATCH = 4096;
+
+    private final Path path;
+    private final DurabilityPolicy policy;
+    private final long fsyncIntervalNanos;
+    private final MpscRingBuffer<Line> ring;
+    private final List<Line> batch = new ArrayList<>(MAX_BATCH);
+    // Appends that may still publish into the ring; close() waits for them before stopping the writer
+    private final InFlightTracker appends = new InFlightTracker();
+
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private Thread writerThread;
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private long lastFsyncNanos;
+    private boolean dirty;
+
+    private final LongAdder lineCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder fsyncCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder producerStalls = new LongAdder();
+
+    public GroupCommitWriter(Path path, DurabilityPolicy policy, long fsyncIntervalMillis, int ringCapacity) {
+        this.path = path;
+        this.policy = policy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.ring = new MpscRingBuffer<>(ringCapacity);
+    }
+
+    @Override
+    public void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        lastFsyncNanos = System.nanoTime();
+        running = true;
+        writerThread = new Thread(this::writeLoop, "group-commit-writer");
+        writerThread.start();
+    }
+
+    @Override
+    public CompletableFuture<Void> append(String line) {
+        if (!running || !appends.tryEnter()) {
+            return CompletableFuture.failedFuture(new IOException(path + " is closed"));
+        }
+        try {
+            Line entry = new Line(line);
+            int spins = 0;
+            while (!ring.offer(entry)) {
+                if (!running) {
+                    // close() gave up waiting for room after an interrupt
+                    return CompletableFuture.failedFuture(new IOException(path + " is closed"));
+                }
+                if (spins++ == 0) {
+                    producerStalls.increment();
+                }
+                LockSupport.unpark(writerThread);
+                if (spins < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(50_000);
+                }
+            }
+            if (writerParked) {
+                LockSupport.unpark(writerThread);
+            }
+            return entry.written;
+        } finally {
+            appends.exit();
+        }
+    }
+
+    private void writeLoop() {
+        while (running || !ring.isEmpty()) {
+            if (ring.drain(batch::add, MAX_BATCH) > 0) {
+                commit();
+                continue;
+            }
+            fsyncIfDue();
+            writerParked = true;
+            // Re-check after announcing we are about to park, so a concurrent append is not missed
+            if (ring.isEmpty() && running) {
+                LockSupport.parkNanos(policy == DurabilityPolicy.FSYNC_INTERVAL
+                        ? fsyncIntervalNanos : TimeUnit.MILLISECONDS.toNanos(10));
+            }
+            writerParked = false;
+        }
+    }
+
+    private void commit() {
+        try {
+            buffer.clear();
+            for (Line line : batch) {
+                byte[] bytes = line.text.getBytes(StandardCharsets.UTF_8);
+                ensureCapacity(bytes.length + 1);
+                buffer.put(bytes).put((byte) '\n');
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            dirty = true;
+            if (policy == DurabilityPolicy.FSYNC_PER_BATCH) {
+                fsync();
+            } else {
+                fsyncIfDue();
+            }
+            batchCount.increment();
+            lineCount.add(batch.size());
+            for (Line line : batch) {
+                line.written.complete(null);
+            }
+        } catch (IOException e) {
+            failedCount.add(batch.size());
+            for (Line line : batch) {
+                line.written.completeExceptionally(e);
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (buffer.remaining() < needed) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    private void fsyncIfDue() {
+        if (policy == DurabilityPolicy.FSYNC_INTERVAL && dirty
+                && System.nanoTime() - lastFsyncNanos >= fsyncIntervalNanos) {
+            try {
+                fsync();
+            } catch (IOException e) {
+                // Lines already reported as written; nothing to hand the failure to but the log
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void fsync() throws IOException {
+        channel.force(false);
+        fsyncCount.increment();
+        lastFsyncNanos = System.nanoTime();
+        dirty = false;
+    }
+
+    /**
+     * Stops accepting lines, waits for the writer to drain the ring and fsyncs unless the policy is
+     * {@link DurabilityPolicy#NO_FSYNC}.
+     */
+    @Override
+    public void close() throws IOException {
+        appends.stopAccepting();
+        try {
+            // The writer keeps draining, so appends waiting for room in the ring get in
+            while (appends.awaitDrained(1_000) > 0) {
+                System.out.println(path + " is waiting for " + appends.getInFlight() + " appends to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (channel != null) {
+            // Only left behind if the wait above was interrupted
+            if (ring.drain(batch::add, Integer.MAX_VALUE) > 0) {
+                commit();
+            }
+            if (dirty && policy != DurabilityPolicy.NO_FSYNC) {
+                fsync();
+            }
+            channel.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GroupCommitWriter{" + path + ", " + policy
+                + ", lines=" + lineCount.sum()
+                + ", batches=" + batchCount.sum()
+                + ", fsyncs=" + fsyncCount.sum()
+                + ", failed=" + failedCount.sum()
+                + ", producerStalls=" + producerStalls.sum() + "}";
+    }
+
+    private static final class Line {
+        final String text;
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        Line(String text) {
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link FileOutput} that appends into fixed-size, memory-mapped segment files.
+ * <p>
+ * Each record is framed as {@code [int length][int crc32c][payload]}; the rest of a segment is zero,
+ * so a zero length marks the end. Appending is a copy into the mapped buffer under a short lock,
+ * with no system call until a segment fills up and the next one is created and mapped. On
+ * {@link #open()} existing segments are indexed and the last one is scanned up to its first
+ * missing or corrupt frame to recover the write position.
+ */
+public class SegmentLog implements FileOutput {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<Segment> segments = new ArrayList<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CRC32C crc = new CRC32C();
+
+    private Segment active;
+    private long recordCount;
+
+    public SegmentLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        for (Path file : files) {
+            segments.add(new Segment(idOf(file), file, null));
+        }
+        if (segments.isEmpty()) {
+            active = createSegment(0);
+        } else {
+            Segment last = segments.remove(segments.size() - 1);
+            active = mapSegment(last.id, last.path);
+            active.buffer.position(recoverPosition(active.buffer));
+            segments.add(active);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> append(String line) {
+        byte[] payload = line.getBytes(StandardCharsets.UTF_8);
+        if (payload.length + HEADER_BYTES > segmentSize) {
+            return CompletableFuture.failedFuture(new IOException(
+                    "Record of " + payload.length + " bytes does not fit a " + segmentSize + " byte segment"));
+        }
+        appendLock.lock();
+        try {
+            if (active.buffer.remaining() < payload.length + HEADER_BYTES) {
+                roll();
+            }
+            crc.reset();
+            crc.update(payload);
+            MappedByteBuffer buffer = active.buffer;
+            int start = buffer.position();
+            // Payload and checksum first, length last, so a reader never sees a length without its bytes
+            buffer.position(start + HEADER_BYTES);
+            buffer.put(payload);
+            buffer.putInt(start + 4, (int) crc.getValue());
+            buffer.putInt(start, payload.length);
+            recordCount++;
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        active.buffer.force();
+        // Keep only the path of full segments; readers map them read-only on demand
+        segments.set(segments.size() - 1, new Segment(active.id, active.path, null));
+        active = createSegment(active.id + 1);
+    }
+
+    private Segment createSegment(long id) throws IOException {
+        Segment segment = mapSegment(id, directory.resolve(String.format("%s%020d%s", PREFIX, id, SUFFIX)));
+        segments.add(segment);
+        return segment;
+    }
+
+    private Segment mapSegment(long id, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            return new Segment(id, path, buffer);
+        }
+    }
+
+    private int recoverPosition(MappedByteBuffer buffer) {
+        int position = 0;
+        CRC32C check = new CRC32C();
+        int length;
+        while ((length = recordLength(buffer, position, buffer.limit(), check)) >= 0) {
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    /**
+     * @return the payload length of the record at {@code position}, or {@code -1} if there is no
+     * complete record with a matching checksum before {@code limit}
+     */
+    private static int recordLength(MappedByteBuffer buffer, int position, int limit, CRC32C check) {
+        if (position + HEADER_BYTES > limit) {
+            return -1;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > limit - position - HEADER_BYTES) {
+            return -1;
+        }
+        check.reset();
+        check.update(buffer.slice(position + HEADER_BYTES, length));
+        return (int) check.getValue() == buffer.getInt(position + 4) ? length : -1;
+    }
+
+    /**
+     * Reads every record of every segment in append order. Full segments are mapped read-only, so this
+     * is a sequential scan of the page cache. The active segment is read up to the position appends had
+     * reached when the scan started, and every record is checked as on recovery: a segment is read up
+     * to its first missing or corrupt frame.
+     */
+    public void readAll(Consumer<String> sink) throws IOException {
+        List<Segment> snapshot;
+        int activeLimit;
+        appendLock.lock();
+        try {
+            snapshot = new ArrayList<>(segments);
+            activeLimit = active.buffer.position();
+        } finally {
+            appendLock.unlock();
+        }
+        CRC32C check = new CRC32C();
+        for (int i = 0; i < snapshot.size(); i++) {
+            try (FileChannel channel = FileChannel.open(snapshot.get(i).path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int limit = i == snapshot.size() - 1 ? Math.min(activeLimit, buffer.limit()) : buffer.limit();
+                int position = 0;
+                int length;
+                while ((length = recordLength(buffer, position, limit, check)) >= 0) {
+                    byte[] payload = new byte[length];
+                    buffer.get(position + HEADER_BYTES, payload);
+                    sink.accept(new String(payload, StandardCharsets.UTF_8));
+                    position += HEADER_BYTES + length;
+                }
+            }
+        }
+    }
+
+    public List<Path> getSegmentIndex() {
+        appendLock.lock();
+        try {
+            return segments.stream().map(segment -> segment.path).toList();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (active != null) {
+                active.buffer.force();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentLog{" + directory + ", segments=" + segments.size()
+                + ", appended=" + recordCount
+                + ", activePosition=" + (active != null ? active.buffer.position() : 0) + "}";
+    }
+
+    private static long idOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private record Segment(long id, Path path, MappedByteBuffer buffer) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class SegmentLogAppConfig {
+
+    @Bean
+    public SegmentLog segmentLog() {
+        return new SegmentLog(Path.of("output-segments"), 16 * 1024 * 1024);
+    }
+
+    @Bean
+    public FileHandler fileHandler(SegmentLog segmentLog) {
+        return new FileHandler(segmentLog);
+    }
+}
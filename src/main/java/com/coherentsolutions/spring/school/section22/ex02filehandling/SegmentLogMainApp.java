@@ -0,0 +1,32 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SegmentLogMainApp {
+    public static void main(String[] args) throws IOException {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(SegmentLogAppConfig.class);
+        FileHandler fileHandler = context.getBean(FileHandler.class);
+        SegmentLog segmentLog = context.getBean(SegmentLog.class);
+
+        // Appends are copies into mapped memory; segments roll over every 16 MB
+        int lines = 1_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            fileHandler.writeData("Line " + i + " of the segment log demo");
+        }
+        System.out.println("Appended " + lines + " lines in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        // Sequential read of everything written so far, including earlier runs
+        AtomicLong records = new AtomicLong();
+        start = System.nanoTime();
+        segmentLog.readAll(line -> records.incrementAndGet());
+        System.out.println("Read " + records + " records from " + segmentLog.getSegmentIndex().size()
+                + " segments in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        // Close the context to trigger @PreDestroy
+        context.close();
+    }
+}
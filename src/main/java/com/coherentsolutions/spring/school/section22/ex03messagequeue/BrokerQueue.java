@@ -0,0 +1,112 @@
+package com.coherentsolutions.spring.school.section22.ex03messagequeue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named, bounded queue inside {@link InProcessBroker}.
+ * <p>
+ * Ready messages sit in a lock-free {@link LinkedTransferQueue}; delivered but unsettled messages are
+ * tracked by id until they are acknowledged. The capacity bounds ready plus unacknowledged messages,
+ * so a producer blocks while consumers are behind, and a permit only comes back with the ack.
+ */
+class BrokerQueue {
+
+    private final String name;
+    private final int capacity;
+    private final MessageJournal journal;
+    private final Semaphore permits;
+    private final LinkedTransferQueue<Envelope> ready = new LinkedTransferQueue<>();
+    private final ConcurrentHashMap<Long, Envelope> unacked = new ConcurrentHashMap<>();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder requeued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    BrokerQueue(String name, int capacity, MessageJournal journal) {
+        this.name = name;
+        this.capacity = capacity;
+        this.journal = journal;
+        this.permits = new Semaphore(capacity);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Reserves room for {@code count} messages, blocking while the queue is full; each reserved
+     * message must then be passed to {@link #enqueue(Message)}.
+     */
+    void acquire(int count) throws InterruptedException {
+        permits.acquire(count);
+    }
+
+    boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return permits.tryAcquire(timeout, unit);
+    }
+
+    /**
+     * Gives back room reserved for messages that will not be enqueued after all.
+     */
+    void release(int count) {
+        permits.release(count);
+    }
+
+    void enqueue(Message message) {
+        sent.increment();
+        ready.add(new Envelope(message, 1));
+    }
+
+    /**
+     * Waits up to the timeout for the next ready message and marks it unacknowledged.
+     */
+    Delivery poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Envelope envelope = ready.poll(timeout, unit);
+        if (envelope == null) {
+            return null;
+        }
+        unacked.put(envelope.message().id(), envelope);
+        delivered.increment();
+        return new Delivery(this, envelope.message(), envelope.attempt());
+    }
+
+    void settle(Message message, boolean ack, boolean requeue) {
+        Envelope envelope = unacked.remove(message.id());
+        if (envelope == null) {
+            return;
+        }
+        if (requeue && !ack) {
+            requeued.increment();
+            ready.add(new Envelope(message, envelope.attempt() + 1));
+            return;
+        }
+        if (ack) {
+            acked.increment();
+        } else {
+            dropped.increment();
+        }
+        if (journal != null) {
+            // Dropped messages are settled too: they must not come back on the next start
+            journal.appendAck(message.id());
+        }
+        permits.release();
+    }
+
+    QueueStats stats() {
+        return new QueueStats(name, capacity, ready.size(), unacked.size(),
+                sent.sum(), delivered.sum(), acked.sum(), requeued.sum(), dropped.sum());
+    }
+
+    record Envelope(Message message, int attempt) {
+    }
+}
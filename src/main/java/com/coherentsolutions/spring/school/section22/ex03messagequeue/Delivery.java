@@ -0,0 +1,41 @@
+package com.coherentsolutions.spring.school.section22.ex03messagequeue;
+
+/**
+ * One delivery of a {@link Message} to a subscriber. Settling it more than once has no effect.
+ */
+public class Delivery {
+
+    private final BrokerQueue queue;
+    private final Message message;
+    private final int attempt;
+
+    Delivery(BrokerQueue queue, Message message, int attempt) {
+        this.queue = queue;
+        this.message = message;
+        this.attempt = attempt;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public String getBody() {
+        return message.body();
+    }
+
+    // 1 for the first delivery, higher after a requeue
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public void ack() {
+        queue.settle(message, true, false);
+    }
+
+    /**
+     * @param requeue put the message back at the end of the queue instead of dropping it
+     */
+    public void nack(boolean requeue) {
+        queue.settle(message, false, requeue);
+    }
+}
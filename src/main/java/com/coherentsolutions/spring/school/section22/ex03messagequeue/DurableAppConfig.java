@@ -0,0 +1,15 @@
+package com.coherentsolutions.spring.school.section22.ex03messagequeue;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class DurableAppConfig {
+
+    @Bean
+    public MessageQueueConnectionManager messageQueueConnectionManager() {
+        return new MessageQueueConnectionManager(10_000, Path.of("message-journal"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.coherentsolutions.spring.school.section22.ex03messagequeue;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class DurableMainApp {
+    public static void main(String[] args) throws InterruptedException {
+        // First run: send 1000 messages but only consume and acknowledge 400 of them
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(DurableAppConfig.class);
+        MessageQueueConnectionManager.Connection connection =
+                context.getBean(MessageQueueConnectionManager.class).getConnection();
+        List<String> bodies = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            bodies.add("Payment " + i);
+        }
+        connection.sendBatch("payments", bodies);
+        CountDownLatch consumed = new CountDownLatch(400);
+        InProcessBroker.Subscription subscription = connection.subscribe("payments", delivery -> {
+            if (consumed.getCount() > 0) {
+                delivery.ack();
+                consumed.countDown();
+            } else {
+                // Leave the rest unacknowledged, as if we crashed mid-way
+                delivery.nack(true);
+            }
+        }, false);
+        consumed.await();
+        subscription.cancel();
+        context.close();
+
+        // Second run: the 600 unacknowledged messages come back
+        context = new AnnotationConfigApplicationContext(DurableAppConfig.class);
+        connection = context.getBean(MessageQueueConnectionManager.class).getConnection();
+        CountDownLatch redelivered = new CountDownLatch(600);
+        connection.subscribe("payments", delivery -> redelivered.countDown(), true);
+        redelivered.await();
+        System.out.println("Redelivered after restart: " + connection.getStats("payments"));
+        context.close();
+    }
+}
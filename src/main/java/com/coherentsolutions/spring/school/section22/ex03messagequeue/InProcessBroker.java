@@ -0,0 +1,305 @@
+package com.coherentsolutions.spring.school.section22.ex03messagequeue;
+
+import com.coherentsolutions.spring.school.support.shutdown.InFlightTracker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Message broker that lives inside the JVM: named bounded queues, competing consumers and
+ * acknowledgements, with no network hop. Every subscription runs its listener on its own virtual thread.
+ * <p>
+ * With a {@link MessageJournal} a message is only enqueued, and its send only returns, once it has
+ * been fsynced, so a send that fails has not reached any consumer. Acknowledged messages are recorded
+ * so that {@link #restore(Collection)} can re-enqueue the rest.
+ * <p>
+ * A message whose listener throws is requeued, and dropped once it has been delivered
+ * {@value #MAX_DELIVERY_ATTEMPTS} times.
+ * <p>
+ * After {@link #stopAccepting()} sends fail with {@link IllegalStateException} while subscriptions
+ * keep consuming, so the queues can be drained before {@link #shutdown()}.
+ */
+public class InProcessBroker {
+
+    public static final int MAX_DELIVERY_ATTEMPTS = 5;
+
+    private final int defaultCapacity;
+    private final MessageJournal journal;
+    private final Map<String, BrokerQueue> queues = new ConcurrentHashMap<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong messageIds = new AtomicLong();
+    private final InFlightTracker sends = new InFlightTracker();
+
+    public InProcessBroker(int defaultCapacity) {
+        this(defaultCapacity, null);
+    }
+
+    /**
+     * @param journal makes queues durable when not {@code null}
+     */
+    public InProcessBroker(int defaultCapacity, MessageJournal journal) {
+        this.defaultCapacity = defaultCapacity;
+        this.journal = journal;
+    }
+
+    public void declareQueue(String queue, int capacity) {
+        queues.computeIfAbsent(queue, name -> new BrokerQueue(name, capacity, journal));
+    }
+
+    BrokerQueue queue(String queue) {
+        return queues.computeIfAbsent(queue, name -> new BrokerQueue(name, defaultCapacity, journal));
+    }
+
+    /**
+     * Re-enqueues messages recovered from the journal. Must run before anything is sent; a queue
+     * holding more recovered messages than its capacity is created large enough to take them all.
+     */
+    public void restore(Collection<Message> messages) throws InterruptedException {
+        Map<String, List<Message>> byQueue = new LinkedHashMap<>();
+        for (Message message : messages) {
+            byQueue.computeIfAbsent(message.queue(), name -> new ArrayList<>()).add(message);
+        }
+        for (Map.Entry<String, List<Message>> entry : byQueue.entrySet()) {
+            declareQueue(entry.getKey(), Math.max(defaultCapacity, entry.getValue().size()));
+            BrokerQueue target = queue(entry.getKey());
+            target.acquire(entry.getValue().size());
+            entry.getValue().forEach(target::enqueue);
+        }
+        if (journal != null) {
+            messageIds.set(journal.getHighestMessageId());
+        }
+    }
+
+    /**
+     * Blocks while the queue is at capacity.
+     */
+    public Message send(String queue, String body) throws InterruptedException {
+        enterSend();
+        try {
+            BrokerQueue target = queue(queue);
+            target.acquire(1);
+            return sendReserved(target, queue, body);
+        } finally {
+            sends.exit();
+        }
+    }
+
+    /**
+     * @return {@code false} if the queue stayed full for the whole timeout
+     */
+    public boolean trySend(String queue, String body, long timeout, TimeUnit unit) throws InterruptedException {
+        enterSend();
+        try {
+            BrokerQueue target = queue(queue);
+            if (!target.tryAcquire(timeout, unit)) {
+                return false;
+            }
+            sendReserved(target, queue, body);
+            return true;
+        } finally {
+            sends.exit();
+        }
+    }
+
+    /**
+     * Sends the bodies in order, reserving room for as many of them at once as the queue allows.
+     * With a journal, waits for one fsync per chunk rather than one per message. If a chunk
+     * cannot be journaled none of its messages is enqueued; earlier chunks stay sent.
+     */
+    public List<Message> sendBatch(String queue, List<String> bodies) throws InterruptedException {
+        enterSend();
+        try {
+            BrokerQueue target = queue(queue);
+            List<Message> messages = new ArrayList<>(bodies.size());
+            for (int from = 0; from < bodies.size(); from += target.getCapacity()) {
+                List<String> chunk = bodies.subList(from, Math.min(bodies.size(), from + target.getCapacity()));
+                target.acquire(chunk.size());
+                List<Message> journaled = new ArrayList<>(chunk.size());
+                try {
+                    CompletableFuture<Void> durable = null;
+                    for (String body : chunk) {
+                        Message message = newMessage(queue, body);
+                        durable = journal(message);
+                        journaled.add(message);
+                    }
+                    // Records are fsynced in order, so the last one covers the whole chunk
+                    awaitDurable(durable);
+                } catch (RuntimeException e) {
+                    target.release(chunk.size());
+                    throw e;
+                }
+                journaled.forEach(target::enqueue);
+                messages.addAll(journaled);
+            }
+            return messages;
+        } finally {
+            sends.exit();
+        }
+    }
+
+    // The room for the message is already reserved, and given back if the message cannot be journaled
+    private Message sendReserved(BrokerQueue target, String queue, String body) {
+        Message message;
+        try {
+            message = newMessage(queue, body);
+            awaitDurable(journal(message));
+        } catch (RuntimeException e) {
+            target.release(1);
+            throw e;
+        }
+        target.enqueue(message);
+        return message;
+    }
+
+    private void enterSend() {
+        if (!sends.tryEnter()) {
+            throw new IllegalStateException("Broker is not accepting messages");
+        }
+    }
+
+    private CompletableFuture<Void> journal(Message message) {
+        return journal != null ? journal.appendEnqueue(message) : null;
+    }
+
+    private static void awaitDurable(CompletableFuture<Void> durable) {
+        if (durable == null) {
+            return;
+        }
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException io
+                    ? new UncheckedIOException("Message could not be journaled", io)
+                    : e;
+        }
+    }
+
+    private Message newMessage(String queue, String body) {
+        return new Message(messageIds.incrementAndGet(), queue, body);
+    }
+
+    /**
+     * @param autoAck acknowledge each message as soon as the listener returns normally;
+     *                a listener exception requeues it, up to {@value #MAX_DELIVERY_ATTEMPTS} deliveries
+     */
+    public Subscription subscribe(String queue, MessageListener listener, boolean autoAck) {
+        Subscription subscription = new Subscription(queue(queue), listener, autoAck);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    public QueueStats getStats(String queue) {
+        BrokerQueue brokerQueue = queues.get(queue);
+        return brokerQueue != null ? brokerQueue.stats() : null;
+    }
+
+    public List<QueueStats> getStats() {
+        return queues.values().stream().map(BrokerQueue::stats).toList();
+    }
+
+    public void stopAccepting() {
+        sends.stopAccepting();
+    }
+
+    /**
+     * Waits for running sends to finish and, if anything is subscribed, for the queues to be consumed.
+     *
+     * @return the number of messages still ready or unacknowledged when the timeout ran out
+     */
+    public long awaitDrained(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        sends.awaitDrained(timeoutMillis);
+        // Queues do not signal when they empty; poll, as the consumers do
+        while (!subscriptions.isEmpty() && backlog() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return backlog();
+    }
+
+    private long backlog() {
+        long backlog = 0;
+        for (BrokerQueue queue : queues.values()) {
+            QueueStats stats = queue.stats();
+            backlog += stats.ready() + stats.unacked();
+        }
+        return backlog;
+    }
+
+    /**
+     * Cancels every subscription and waits for in-progress listeners to return.
+     */
+    public void shutdown() {
+        for (Subscription subscription : subscriptions) {
+            subscription.cancel();
+        }
+        subscriptions.clear();
+    }
+
+    public final class Subscription {
+        private final BrokerQueue queue;
+        private final MessageListener listener;
+        private final boolean autoAck;
+        private volatile boolean active = true;
+        private Thread consumer;
+
+        private Subscription(BrokerQueue queue, MessageListener listener, boolean autoAck) {
+            this.queue = queue;
+            this.listener = listener;
+            this.autoAck = autoAck;
+        }
+
+        private void start() {
+            consumer = Thread.ofVirtual().name("consumer-" + queue.getName()).start(this::consume);
+        }
+
+        private void consume() {
+            while (active) {
+                Delivery delivery;
+                try {
+                    delivery = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (delivery == null) {
+                    continue;
+                }
+                try {
+                    listener.onMessage(delivery);
+                    if (autoAck) {
+                        delivery.ack();
+                    }
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    boolean poison = delivery.getAttempt() >= MAX_DELIVERY_ATTEMPTS;
+                    if (poison) {
+                        System.out.println("Dropping message " + delivery.getMessage().id() + " after "
+                                + delivery.getAttempt() + " failed deliveries");
+                    }
+                    delivery.nack(!poison);
+                }
+            }
+        }
+
+        public void cancel() {
+            active = false;
+            subscriptions.remove(this);
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.coherentsolutions.spring.school.section22.ex03messagequeue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long {@link MessageJournal#open()} takes after millions of messages have been sent
+ * and almost all of them acknowledged, with and without checkpoints.
+ */
+public class JournalRecoveryBenchmark {
+
+    private static final int MESSAGES = 2_000_000;
+    // One message in this many stays unacknowledged
+    private static final int UNACKED_EVERY = 100;
+
+    public static void main(String[] args) throws IOException {
+        run("no checkpoints        ", Integer.MAX_VALUE);
+        run("checkpoint every 2 seg", 2);
+    }
+
+    private static void run(String label, int segmentsPerCheckpoint) throws IOException {
+        Path directory = Files.createTempDirectory("journal-bench");
+        try {
+            MessageJournal journal = new MessageJournal(directory, 16L * 1024 * 1024, segmentsPerCheckpoint);
+            journal.open();
+            CompletableFuture<Void> last = null;
+            for (long id = 1; id <= MESSAGES; id++) {
+                last = journal.appendEnqueue(new Message(id, "orders", "Order payload number " + id));
+                if (id % UNACKED_EVERY != 0) {
+                    journal.appendAck(id);
+                }
+            }
+            last.join();
+            journal.close();
+            long journalMegabytes = size(directory) / (1024 * 1024);
+
+            long start = System.nanoTime();
+            MessageJournal reopened = new MessageJournal(directory, 16L * 1024 * 1024, segmentsPerCheckpoint);
+            Collection<Message> recovered = reopened.open();
+            long recoveryMillis = (System.nanoTime() - start) / 1_000_000;
+            reopened.close();
+            System.out.println(label + ": recovered " + recovered.size() + " messages in " + recoveryMillis
+                    + " ms from " + journalMegabytes + " MB of journal");
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
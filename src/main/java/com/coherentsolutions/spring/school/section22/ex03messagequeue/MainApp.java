@@ -3,14 +3,40 @@ package com.coherentsolutions.spring.school.section22.ex03messagequeue;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
 public class MainApp {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         ApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class);
         MessageQueueConnectionManager mqManager = context.getBean(MessageQueueConnectionManager.class);
 
         // Use the connection
         MessageQueueConnectionManager.Connection connection = mqManager.getConnection();
         // Perform message queue operations...
+        int messages = 100_000;
+        connection.declareQueue("orders", 1_000);
+        CountDownLatch received = new CountDownLatch(messages);
+        for (int i = 0; i < 4; i++) {
+            connection.subscribe("orders", delivery -> {
+                delivery.ack();
+                received.countDown();
+            }, false);
+        }
+
+        long start = System.nanoTime();
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            batch.add("Order " + i);
+            if (batch.size() == 100) {
+                connection.sendBatch("orders", batch);
+                batch.clear();
+            }
+        }
+        received.await();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Sent and consumed " + messages + " messages in " + elapsedMillis + " ms");
 
         // Close the context to trigger @PreDestroy
         ((AnnotationConfigApplicationContext) context).close();
@@ -0,0 +1,4 @@
+package com.coherentsolutions.spring.school.section22.ex03messagequeue;
+
+public record Message(long id, String queue, String body) {
+}
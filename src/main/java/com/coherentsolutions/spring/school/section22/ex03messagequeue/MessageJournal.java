@@ -0,0 +1,376 @@
+package com.coherentsolutions.spring.school.section22.ex03messagequeue;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal that makes {@link InProcessBroker} queues survive a restart.
+ * <p>
+ * Every sent message is journaled as an ENQUEUE record and every acknowledged or dropped one as an
+ * ACK record. A single writer thread takes whatever records have piled up, writes them with one
+ * {@code write} call and fsyncs once for the whole batch; producers wait on the returned future.
+ * <p>
+ * Compaction: when enough segments have rolled over, the writer writes a checkpoint holding only
+ * the messages that are still unacknowledged and deletes the segments it covers. Recovery reads the
+ * latest checkpoint and replays the few segments after it, so its cost is bounded by the number
+ * of live messages plus the checkpoint interval rather than by the journal's whole history.
+ */
+public class MessageJournal implements AutoCloseable {
+
+    private static final byte ENQUEUE = 1;
+    private static final byte ACK = 2;
+    // First record of a checkpoint: the highest message id ever journaled, so ids are never reused
+    private static final byte HIGH_WATER = 3;
+    private static final int MAX_BATCH = 8192;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int segmentsPerCheckpoint;
+
+    private final BlockingQueue<PendingRecord> pending = new LinkedBlockingQueue<>();
+    // Unacknowledged messages as of the last written record; owned by the writer thread after open()
+    private final Map<Long, Message> live = new LinkedHashMap<>();
+    private long highestMessageId;
+
+    private FileChannel segment;
+    private long segmentSequence;
+    private int segmentsSinceCheckpoint;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+    private Thread writer;
+    private volatile boolean running;
+
+    private final LongAdder recordsWritten = new LongAdder();
+    private final LongAdder fsyncs = new LongAdder();
+    private final LongAdder checkpoints = new LongAdder();
+
+    public MessageJournal(Path directory, long segmentBytes, int segmentsPerCheckpoint) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.segmentsPerCheckpoint = segmentsPerCheckpoint;
+    }
+
+    /**
+     * Recovers the journal and starts the writer.
+     *
+     * @return the messages that were never acknowledged, in the order they were sent
+     */
+    public Collection<Message> open() throws IOException {
+        Files.createDirectories(directory);
+        long checkpointSequence = latestCheckpoint();
+        if (checkpointSequence >= 0) {
+            replay(checkpointPath(checkpointSequence));
+        }
+        long lastSegment = checkpointSequence;
+        for (Path file : list(SEGMENT_PREFIX)) {
+            long sequence = sequenceOf(file, SEGMENT_PREFIX);
+            if (sequence >= checkpointSequence) {
+                replay(file);
+                lastSegment = Math.max(lastSegment, sequence);
+                segmentsSinceCheckpoint++;
+            }
+        }
+        // Always start a fresh segment so a torn tail of the previous one is never appended to
+        openSegment(lastSegment + 1);
+        if (segmentsSinceCheckpoint >= segmentsPerCheckpoint) {
+            checkpoint();
+        }
+
+        running = true;
+        writer = new Thread(this::writeLoop, "message-journal-writer");
+        writer.start();
+        return new ArrayList<>(live.values());
+    }
+
+    /**
+     * @return a future completed once the ENQUEUE record has been fsynced
+     */
+    public CompletableFuture<Void> appendEnqueue(Message message) {
+        return submit(new PendingRecord(ENQUEUE, message.id(), message));
+    }
+
+    public void appendAck(long messageId) {
+        submit(new PendingRecord(ACK, messageId, null));
+    }
+
+    private CompletableFuture<Void> submit(PendingRecord record) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IOException("Journal is closed"));
+        }
+        pending.add(record);
+        return record.done;
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingRecord first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Capped so a segment never overshoots its size by more than one batch
+                pending.drainTo(batch, MAX_BATCH - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingRecord> batch) {
+        try {
+            buffer.clear();
+            for (PendingRecord record : batch) {
+                encode(record);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            segment.force(false);
+            fsyncs.increment();
+            recordsWritten.add(batch.size());
+            for (PendingRecord record : batch) {
+                apply(record.type, record.messageId, record.message);
+                record.done.complete(null);
+            }
+            if (segment.size() >= segmentBytes) {
+                rollSegment();
+            }
+        } catch (IOException e) {
+            for (PendingRecord record : batch) {
+                record.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void encode(PendingRecord record) {
+        encode(record.type, record.messageId, record.message);
+    }
+
+    private void encode(byte type, long messageId, Message message) {
+        byte[] queue = message != null ? message.queue().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] body = message != null ? message.body().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int payloadLength = 1 + 8 + 4 + queue.length + 4 + body.length;
+        ensureCapacity(8 + payloadLength);
+        int start = buffer.position();
+        buffer.putInt(payloadLength).putInt(0);
+        buffer.put(type).putLong(messageId)
+                .putInt(queue.length).put(queue)
+                .putInt(body.length).put(body);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(start + 8).limit(start + 8 + payloadLength));
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void ensureCapacity(int needed) {
+        if (buffer.remaining() < needed) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    private void apply(byte type, long messageId, Message message) {
+        highestMessageId = Math.max(highestMessageId, messageId);
+        if (type == ENQUEUE) {
+            live.put(messageId, message);
+        } else if (type == ACK) {
+            live.remove(messageId);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        segment.close();
+        openSegment(segmentSequence + 1);
+        if (++segmentsSinceCheckpoint >= segmentsPerCheckpoint) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Writes every live message into a checkpoint that replaces all segments before the active one.
+     * The checkpoint is written to a temporary file and renamed, so a crash leaves either the old
+     * state or the new one.
+     */
+    private void checkpoint() throws IOException {
+        Path temporary = directory.resolve(CHECKPOINT_PREFIX + "tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.clear();
+            encode(HIGH_WATER, highestMessageId, null);
+            for (Message message : live.values()) {
+                encode(ENQUEUE, message.id(), message);
+                if (buffer.position() >= 1024 * 1024) {
+                    flushTo(channel);
+                }
+            }
+            flushTo(channel);
+            channel.force(true);
+        }
+        Files.move(temporary, checkpointPath(segmentSequence), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        for (Path file : list(SEGMENT_PREFIX)) {
+            if (sequenceOf(file, SEGMENT_PREFIX) < segmentSequence) {
+                Files.delete(file);
+            }
+        }
+        for (Path file : list(CHECKPOINT_PREFIX)) {
+            if (sequenceOf(file, CHECKPOINT_PREFIX) < segmentSequence) {
+                Files.delete(file);
+            }
+        }
+        segmentsSinceCheckpoint = 0;
+        checkpoints.increment();
+    }
+
+    private void flushTo(FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        segmentSequence = sequence;
+        segment = FileChannel.open(directory.resolve(String.format("%s%020d.log", SEGMENT_PREFIX, sequence)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Stops at the end of the file or at the first torn or corrupt record
+    private void replay(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 256 * 1024))) {
+            CRC32C crc = new CRC32C();
+            while (true) {
+                byte[] payload;
+                int expectedCrc;
+                try {
+                    int length = in.readInt();
+                    expectedCrc = in.readInt();
+                    if (length <= 0) {
+                        return;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    return;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    return;
+                }
+                ByteBuffer record = ByteBuffer.wrap(payload);
+                byte type = record.get();
+                long messageId = record.getLong();
+                String queue = readString(record);
+                String body = readString(record);
+                apply(type, messageId, type == ENQUEUE ? new Message(messageId, queue, body) : null);
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getInt()];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long latestCheckpoint() throws IOException {
+        long latest = -1;
+        for (Path file : list(CHECKPOINT_PREFIX)) {
+            latest = Math.max(latest, sequenceOf(file, CHECKPOINT_PREFIX));
+        }
+        return latest;
+    }
+
+    private Path checkpointPath(long sequence) {
+        return directory.resolve(String.format("%s%020d.snap", CHECKPOINT_PREFIX, sequence));
+    }
+
+    private List<Path> list(String prefix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "[0-9]*")) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private static long sequenceOf(Path file, String prefix) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.indexOf('.')));
+    }
+
+    public long getHighestMessageId() {
+        return highestMessageId;
+    }
+
+    /**
+     * Writes every record still pending and releases the active segment.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MessageJournal{" + directory + ", records=" + recordsWritten.sum()
+                + ", fsyncs=" + fsyncs.sum() + ", checkpoints=" + checkpoints.sum()
+                + ", segment=" + segmentSequence + "}";
+    }
+
+    private static final class PendingRecord {
+        final byte type;
+        final long messageId;
+        final Message message;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingRecord(byte type, long messageId, Message message) {
+            this.type = type;
+            this.messageId = messageId;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.coherentsolutions.spring.school.section22.ex03messagequeue;
+
+@FunctionalInterface
+public interface MessageListener {
+    /**
+     * Called on the subscription's consumer thread. Unless the subscription auto-acknowledges, the
+     * listener must {@link Delivery#ack()} or {@link Delivery#nack(boolean)} every delivery.
+     */
+    void onMessage(Delivery delivery);
+}
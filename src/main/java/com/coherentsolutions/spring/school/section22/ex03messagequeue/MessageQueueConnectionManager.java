@@ -1,27 +1,91 @@
 package com.coherentsolutions.spring.school.section22.ex03messagequeue;
 
+import com.coherentsolutions.spring.school.support.bootstrap.BackgroundInit;
+import com.coherentsolutions.spring.school.support.shutdown.GracefulShutdown;
+
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class MessageQueueConnectionManager {
+// Connecting is slow; contexts with background bootstrap initialize it off the startup thread
+@BackgroundInit
+public class MessageQueueConnectionManager implements GracefulShutdown {
 
+    private final int defaultQueueCapacity;
+    private final Path journalDirectory;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private InProcessBroker broker;
+    private MessageJournal journal;
     private Connection connection;
 
+    public MessageQueueConnectionManager() {
+        this(10_000, null);
+    }
+
+    /**
+     * @param journalDirectory when not {@code null} queues are journaled there and unacknowledged
+     *                         messages are redelivered after a restart
+     */
+    public MessageQueueConnectionManager(int defaultQueueCapacity, Path journalDirectory) {
+        this.defaultQueueCapacity = defaultQueueCapacity;
+        this.journalDirectory = journalDirectory;
+    }
+
     @PostConstruct
-    public void init() {
-        // Simulate establishing a connection to a message queue
+    public void init() throws IOException, InterruptedException {
+        if (journalDirectory != null) {
+            // Replay the journal before anyone can send
+            long start = System.nanoTime();
+            journal = new MessageJournal(journalDirectory, 64L * 1024 * 1024, 4);
+            Collection<Message> recovered = journal.open();
+            broker = new InProcessBroker(defaultQueueCapacity, journal);
+            broker.restore(recovered);
+            System.out.println("Recovered " + recovered.size() + " unacknowledged messages in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        } else {
+            broker = new InProcessBroker(defaultQueueCapacity);
+        }
+        // Establish a connection to the in-process broker
         connection = new Connection("MessageQueueConnection");
         connection.connect();
         System.out.println("Message queue connection established.");
     }
 
+    @Override
+    public void stopAccepting() {
+        broker.stopAccepting();
+    }
+
+    /**
+     * Messages left over are lost unless the queues are journaled, in which case they are
+     * redelivered after the next start.
+     */
+    @Override
+    public long awaitDrained(long timeoutMillis) throws InterruptedException {
+        return broker.awaitDrained(timeoutMillis);
+    }
+
     @PreDestroy
-    public void close() {
-        // Simulate closing the connection to the message queue
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        // Close the connection to the message queue
         if (connection != null) {
             connection.disconnect();
             System.out.println("Message queue connection closed.");
         }
+        if (journal != null) {
+            // Unconsumed messages stay in the journal for the next start
+            journal.close();
+            System.out.println("Message journal closed: " + journal);
+        }
     }
 
     public Connection getConnection() {
@@ -40,7 +104,36 @@ public class MessageQueueConnectionManager {
         }
 
         public void disconnect() {
+            broker.shutdown();
+            for (QueueStats stats : broker.getStats()) {
+                System.out.println("Queue stats: " + stats);
+            }
             System.out.println("Disconnecting from " + name);
         }
+
+        public void declareQueue(String queue, int capacity) {
+            broker.declareQueue(queue, capacity);
+        }
+
+        // Blocks while the queue is full
+        public Message send(String queue, String body) throws InterruptedException {
+            return broker.send(queue, body);
+        }
+
+        public boolean trySend(String queue, String body, long timeout, TimeUnit unit) throws InterruptedException {
+            return broker.trySend(queue, body, timeout, unit);
+        }
+
+        public List<Message> sendBatch(String queue, List<String> bodies) throws InterruptedException {
+            return broker.sendBatch(queue, bodies);
+        }
+
+        public InProcessBroker.Subscription subscribe(String queue, MessageListener listener, boolean autoAck) {
+            return broker.subscribe(queue, listener, autoAck);
+        }
+
+        public QueueStats getStats(String queue) {
+            return broker.getStats(queue);
+        }
     }
 }
@@ -0,0 +1,5 @@
+package com.coherentsolutions.spring.school.section22.ex03messagequeue;
+
+public record QueueStats(String queue, int capacity, int ready, int unacked,
+                         long sent, long delivered, long acked, long requeued, long dropped) {
+}
@@ -0,0 +1,31 @@
+package com.coherentsolutions.spring.school.section31;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Random;
+
+public class CachedLookupMainApp {
+    public static void main(String[] args) {
+        // Enable the user cache, sized well below the number of users
+        System.setProperty("user.cache.enabled", "true");
+        System.setProperty("user.cache.maximum-size", "20");
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class);
+        UserService userService = context.getBean(UserService.class);
+
+        for (int i = 0; i < 100; i++) {
+            userService.registerUser("User " + i);
+        }
+
+        // Most lookups go to a hot set of 10 users, the rest are scattered over all 100
+        Random random = new Random(42);
+        for (int i = 0; i < 1_000; i++) {
+            int id = random.nextInt(10) < 8 ? random.nextInt(10) : random.nextInt(100);
+            userService.findUser("User " + id);
+        }
+        System.out.println("User cache: " + userService.getCacheStats());
+
+        // Close the context
+        context.close();
+    }
+}
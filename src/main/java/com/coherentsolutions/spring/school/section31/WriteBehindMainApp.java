@@ -0,0 +1,29 @@
+package com.coherentsolutions.spring.school.section31;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.CompletableFuture;
+
+public class WriteBehindMainApp {
+    public static void main(String[] args) {
+        // Enable write-behind before the context reads its settings
+        System.setProperty("user.write-behind.enabled", "true");
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class);
+        UserService userService = context.getBean(UserService.class);
+
+        // Register users in bulk; each call only buffers the user
+        int users = 100_000;
+        long start = System.nanoTime();
+        CompletableFuture<?>[] registrations = new CompletableFuture<?>[users];
+        for (int i = 0; i < users; i++) {
+            registrations[i] = userService.registerUser("User " + i);
+        }
+        CompletableFuture.allOf(registrations).join();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Registered " + users + " users in " + elapsedMillis + " ms");
+
+        // Close the context
+        context.close();
+    }
+}
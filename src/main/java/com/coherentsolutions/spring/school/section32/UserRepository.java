@@ -2,9 +2,29 @@ package com.coherentsolutions.spring.school.section32;
 
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Repository
 public class UserRepository {
+    // Stands in for the users table
+    private final Set<String> users = ConcurrentHashMap.newKeySet();
+
     public void save(String user) {
         System.out.println("Saving user: " + user);
+        users.add(user);
+    }
+
+    // One round trip for the whole batch
+    public void saveAll(List<String> users) {
+        System.out.println("Saving batch of " + users.size() + " users");
+        this.users.addAll(users);
+    }
+
+    public Optional<String> findUser(String user) {
+        System.out.println("Loading user: " + user);
+        return users.contains(user) ? Optional.of(user) : Optional.empty();
     }
 }
@@ -1,22 +1,137 @@
 package com.coherentsolutions.spring.school.section32;
 
+import com.coherentsolutions.spring.school.support.cache.CacheStats;
+import com.coherentsolutions.spring.school.support.cache.TinyLfuCache;
+import com.coherentsolutions.spring.school.support.writebehind.WriteBehindQueue;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class UserService {
     private UserRepository userRepository;
 
+    private boolean writeBehindEnabled;
+    private int writeBehindCapacity;
+    private int writeBehindBatchSize;
+    private long writeBehindMaxDelayMillis;
+
+    private boolean cacheEnabled;
+    private int cacheMaximumSize;
+    private long cacheTtlSeconds;
+
+    private WriteBehindQueue<String> writeBehindQueue;
+    private TinyLfuCache<String, Optional<String>> userCache;
+
     // Setter for UserRepository
     @Autowired
     public void setUserRepository(UserRepository userRepository) {
         this.userRepository = userRepository;
     }
 
-    public void registerUser(String user) {
+    // Setters for the write-behind settings
+    @Value("${user.write-behind.enabled:false}")
+    public void setWriteBehindEnabled(boolean writeBehindEnabled) {
+        this.writeBehindEnabled = writeBehindEnabled;
+    }
+
+    @Value("${user.write-behind.capacity:10000}")
+    public void setWriteBehindCapacity(int writeBehindCapacity) {
+        this.writeBehindCapacity = writeBehindCapacity;
+    }
+
+    @Value("${user.write-behind.batch-size:500}")
+    public void setWriteBehindBatchSize(int writeBehindBatchSize) {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+    }
+
+    @Value("${user.write-behind.max-delay-ms:20}")
+    public void setWriteBehindMaxDelayMillis(long writeBehindMaxDelayMillis) {
+        this.writeBehindMaxDelayMillis = writeBehindMaxDelayMillis;
+    }
+
+    // Setters for the cache settings
+    @Value("${user.cache.enabled:false}")
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    @Value("${user.cache.maximum-size:1000}")
+    public void setCacheMaximumSize(int cacheMaximumSize) {
+        this.cacheMaximumSize = cacheMaximumSize;
+    }
+
+    @Value("${user.cache.ttl-seconds:300}")
+    public void setCacheTtlSeconds(long cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (cacheEnabled) {
+            userCache = new TinyLfuCache<>(cacheMaximumSize, cacheTtlSeconds, TimeUnit.SECONDS);
+        }
+        if (writeBehindEnabled) {
+            writeBehindQueue = new WriteBehindQueue<>("user-write-behind", writeBehindCapacity,
+                    writeBehindBatchSize, writeBehindMaxDelayMillis, userRepository::saveAll);
+            writeBehindQueue.start();
+        }
+    }
+
+    @PreDestroy
+    public void flushWriteBehind() {
+        if (writeBehindQueue != null) {
+            // Flush everything still buffered while the repository is still alive
+            writeBehindQueue.close();
+            System.out.println("Write-behind flushed: " + writeBehindQueue);
+        }
+    }
+
+    /**
+     * In write-behind mode the user is only buffered here; the returned future completes once the
+     * batch containing it has been saved. Blocks while the buffer is full.
+     */
+    public CompletableFuture<Void> registerUser(String user) {
         // Business logic for registering a user
+        if (writeBehindQueue != null) {
+            try {
+                return writeBehindQueue.submit(user).thenRun(() -> evictCachedUser(user));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(e);
+            }
+        }
         System.out.println("Registering user: " + user);
         userRepository.save(user);
+        evictCachedUser(user);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Looks the user up through the read-through cache when {@code user.cache.enabled} is set.
+     */
+    public Optional<String> findUser(String user) {
+        if (userCache == null) {
+            return userRepository.findUser(user);
+        }
+        return userCache.get(user, userRepository::findUser);
+    }
+
+    // A cached "not found" must not outlive the registration
+    private void evictCachedUser(String user) {
+        if (userCache != null) {
+            userCache.invalidate(user);
+        }
+    }
+
+    public CacheStats getCacheStats() {
+        return userCache != null ? userCache.stats() : null;
     }
 }
@@ -0,0 +1,34 @@
+package com.coherentsolutions.spring.school.section33;
+
+import com.coherentsolutions.spring.school.section33.ex01list.ProcessingManager;
+import com.coherentsolutions.spring.school.section33.execution.BatchPipeline;
+import com.coherentsolutions.spring.school.section33.services.Batch;
+import com.coherentsolutions.spring.school.support.metrics.LatencyAspect;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LatencyMainApp {
+    public static void main(String[] args) throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(LatencyAppConfig.class)) {
+            ProcessingManager manager = context.getBean(ProcessingManager.class);
+            manager.processAll();
+
+            BatchPipeline pipeline = manager.pipeline(64, batch -> { });
+            pipeline.start();
+            for (int sequence = 0; sequence < 5_000; sequence++) {
+                List<String> items = new ArrayList<>(100);
+                for (int i = 0; i < 100; i++) {
+                    items.add("  Item-" + sequence + "-" + i + " ");
+                }
+                pipeline.submit(new Batch<>(sequence, items));
+            }
+            pipeline.close();
+
+            // Both process() and the batch stages are counted, per service
+            context.getBean(LatencyAspect.class).getSnapshots()
+                    .forEach((name, snapshot) -> System.out.println(name + ": " + snapshot));
+        }
+    }
+}
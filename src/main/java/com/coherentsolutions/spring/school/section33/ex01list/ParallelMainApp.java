@@ -0,0 +1,47 @@
+package com.coherentsolutions.spring.school.section33.ex01list;
+
+import com.coherentsolutions.spring.school.section33.services.ProcessingService;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.annotation.Order;
+
+import java.util.List;
+
+public class ParallelMainApp {
+    public static void main(String[] args) throws Exception {
+        for (String mode : new String[]{"SEQUENTIAL", "PARALLEL", "ORDERED"}) {
+            System.setProperty("processing.mode", mode);
+            System.setProperty("processing.timeout-ms", "2000");
+
+            try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+                context.register(AppConfig.class);
+                context.registerBean(AuditService.class);
+                context.refresh();
+                ProcessingManager manager = context.getBean(ProcessingManager.class);
+
+                System.out.println("--- " + mode + " ---");
+                if (mode.equals("ORDERED")) {
+                    // Stages run one after another, the services within a stage at the same time
+                    manager.getStages().forEach((order, services) ->
+                            System.out.println("Stage @Order(" + order + "): " + names(services)));
+                }
+                long start = System.nanoTime();
+                manager.processAll();
+                System.out.printf("%s took %.2f ms%n", mode, (System.nanoTime() - start) / 1e6);
+            }
+        }
+    }
+
+    private static List<String> names(List<ProcessingService> services) {
+        return services.stream().map(service -> AopUtils.getTargetClass(service).getSimpleName()).toList();
+    }
+
+    // Shares the last stage with ThirdService
+    @Order(3)
+    static class AuditService implements ProcessingService {
+        @Override
+        public void process() {
+            System.out.println("Processing in AuditService");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.coherentsolutions.spring.school.section33.ex01list;
+
+import com.coherentsolutions.spring.school.section33.execution.BatchPipeline;
+import com.coherentsolutions.spring.school.section33.services.Batch;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PipelineMainApp {
+    public static void main(String[] args) throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class)) {
+            ProcessingManager manager = context.getBean(ProcessingManager.class);
+
+            LongAdder totalLength = new LongAdder();
+            BatchPipeline pipeline = manager.pipeline(64, batch -> {
+                for (Object length : batch.items()) {
+                    totalLength.add((Integer) length);
+                }
+            });
+            pipeline.start();
+
+            for (int sequence = 0; sequence < 20_000; sequence++) {
+                List<String> items = new ArrayList<>(100);
+                for (int i = 0; i < 100; i++) {
+                    items.add(i % 10 == 0 ? "   " : "  Item-" + sequence + "-" + i + " ");
+                }
+                pipeline.submit(new Batch<>(sequence, items));
+            }
+            pipeline.close();
+
+            System.out.println("Total length: " + totalLength.sum());
+            pipeline.getStageMetrics().forEach(System.out::println);
+        }
+    }
+}
@@ -1,24 +1,56 @@
 package com.coherentsolutions.spring.school.section33.ex01list;
 
+import com.coherentsolutions.spring.school.section33.execution.BatchPipeline;
+import com.coherentsolutions.spring.school.section33.execution.ExecutionMode;
+import com.coherentsolutions.spring.school.section33.execution.ProcessingExecutor;
+import com.coherentsolutions.spring.school.section33.services.Batch;
+import com.coherentsolutions.spring.school.section33.services.BatchProcessingService;
 import com.coherentsolutions.spring.school.section33.services.ProcessingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @Component
 public class ProcessingManager {
 
     private List<ProcessingService> processingServices;
 
+    private List<BatchProcessingService<?, ?>> batchStages;
+
+    @Value("${processing.mode:SEQUENTIAL}")
+    private ExecutionMode executionMode;
+
+    @Value("${processing.timeout-ms:5000}")
+    private long timeoutMillis;
+
     @Autowired
     public void setProcessingServices(List<ProcessingService> processingServices) {
         this.processingServices = processingServices;
     }
 
-    public void processAll() {
-        for (ProcessingService service : processingServices) {
-            service.process();
-        }
+    @Autowired
+    public void setBatchStages(List<BatchProcessingService<?, ?>> batchStages) {
+        this.batchStages = batchStages;
+    }
+
+    public void processAll() throws InterruptedException, TimeoutException {
+        ProcessingExecutor.run(processingServices, executionMode, timeoutMillis);
+    }
+
+    public Map<Integer, List<ProcessingService>> getStages() {
+        return ProcessingExecutor.stagesByOrder(processingServices);
+    }
+
+    /**
+     * Builds a pipeline with the batch services as its stages, in their {@code @Order}. The caller starts it,
+     * submits batches and closes it.
+     */
+    public BatchPipeline pipeline(int queueCapacity, Consumer<Batch<?>> sink) {
+        return new BatchPipeline(batchStages, queueCapacity, sink);
     }
 }
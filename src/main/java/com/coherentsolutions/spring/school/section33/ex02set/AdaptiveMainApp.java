@@ -0,0 +1,60 @@
+package com.coherentsolutions.spring.school.section33.ex02set;
+
+import com.coherentsolutions.spring.school.section33.services.ProcessingService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Set;
+
+public class AdaptiveMainApp {
+    public static void main(String[] args) throws Exception {
+        System.setProperty("processing.budget-ms", "60");
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfig.class)) {
+            ProcessingManager manager = context.getBean(ProcessingManager.class);
+            // Stand-ins with known latencies; together they need 95 ms, more than the budget
+            manager.setProcessingServices(Set.of(new FastService(), new MediumService(), new SlowService()));
+
+            for (int call = 1; call <= 40; call++) {
+                long start = System.nanoTime();
+                manager.processAll();
+                System.out.printf("Call %d took %.1f ms%n", call, (System.nanoTime() - start) / 1e6);
+            }
+            manager.getServiceCosts().forEach(System.out::println);
+        }
+    }
+
+    private abstract static class SimulatedService implements ProcessingService {
+        private final long millis;
+
+        SimulatedService(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public void process() {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class FastService extends SimulatedService {
+        FastService() {
+            super(5);
+        }
+    }
+
+    private static class MediumService extends SimulatedService {
+        MediumService() {
+            super(30);
+        }
+    }
+
+    private static class SlowService extends SimulatedService {
+        SlowService() {
+            super(60);
+        }
+    }
+}
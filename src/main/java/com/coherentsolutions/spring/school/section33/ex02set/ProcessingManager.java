@@ -1,24 +1,51 @@
 package com.coherentsolutions.spring.school.section33.ex02set;
 
+import com.coherentsolutions.spring.school.section33.execution.CostAdaptiveScheduler;
+import com.coherentsolutions.spring.school.section33.execution.ExecutionMode;
+import com.coherentsolutions.spring.school.section33.execution.ProcessingExecutor;
 import com.coherentsolutions.spring.school.section33.services.ProcessingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeoutException;
 
 @Component
 public class ProcessingManager {
 
     private Set<ProcessingService> processingServices;
 
+    @Value("${processing.mode:SEQUENTIAL}")
+    private ExecutionMode executionMode;
+
+    @Value("${processing.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    // Zero runs every service regardless of cost
+    @Value("${processing.budget-ms:0}")
+    private long budgetMillis;
+
+    private final CostAdaptiveScheduler scheduler = new CostAdaptiveScheduler(0.2);
+
     @Autowired
     public void setProcessingServices(Set<ProcessingService> processingServices) {
         this.processingServices = processingServices;
     }
 
-    public void processAll() {
-        for (ProcessingService service : processingServices) {
-            service.process();
+    public void processAll() throws InterruptedException, TimeoutException {
+        if (budgetMillis > 0) {
+            List<ProcessingService> skipped = scheduler.run(processingServices, budgetMillis);
+            if (!skipped.isEmpty()) {
+                System.out.println("Skipped " + skipped.size() + " service(s) to stay within " + budgetMillis + " ms");
+            }
+        } else {
+            ProcessingExecutor.run(processingServices, executionMode, timeoutMillis);
         }
     }
+
+    public List<CostAdaptiveScheduler.ServiceCost> getServiceCosts() {
+        return scheduler.getCosts();
+    }
 }
@@ -0,0 +1,55 @@
+package com.coherentsolutions.spring.school.section33.ex03map;
+
+import com.coherentsolutions.spring.school.section33.execution.DispatchTable;
+import com.coherentsolutions.spring.school.section33.services.ProcessingService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class DispatchBenchmark {
+
+    private static final int SERVICES = 64;
+    private static final int ROUNDS = 5;
+    private static final int LOOKUPS = 20_000_000;
+
+    public static void main(String[] args) {
+        Map<String, ProcessingService> map = new HashMap<>();
+        for (int i = 0; i < SERVICES; i++) {
+            map.put("service" + i, () -> {
+            });
+        }
+        DispatchTable table = new DispatchTable(map);
+        // Fresh copies of the names, like keys parsed from incoming messages
+        String[] keys = new String[SERVICES];
+        int[] handles = new int[SERVICES];
+        for (int i = 0; i < SERVICES; i++) {
+            keys[i] = new String(("service" + i).toCharArray());
+            handles[i] = table.handleOf(keys[i]);
+        }
+
+        long sink = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                sink += System.identityHashCode(map.get(keys[i & (SERVICES - 1)]));
+            }
+            long mapNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                sink += System.identityHashCode(table.get(keys[i & (SERVICES - 1)]));
+            }
+            long tableNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                sink += System.identityHashCode(table.get(handles[i & (SERVICES - 1)]));
+            }
+            long handleNanos = System.nanoTime() - start;
+
+            System.out.printf("Round %d: HashMap %.2f ns, perfect hash %.2f ns, handle %.2f ns per lookup%n",
+                    round, (double) mapNanos / LOOKUPS, (double) tableNanos / LOOKUPS, (double) handleNanos / LOOKUPS);
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+}
@@ -1,9 +1,11 @@
 package com.coherentsolutions.spring.school.section33.ex03map;
 
+import com.coherentsolutions.spring.school.section33.execution.DispatchTable;
 import com.coherentsolutions.spring.school.section33.services.ProcessingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.util.Map;
 
 @Component
@@ -11,17 +13,41 @@ public class ProcessingManager {
 
     private Map<String, ProcessingService> processingServices;
 
+    private DispatchTable dispatchTable;
+
     @Autowired
     public void setProcessingServices(Map<String, ProcessingService> processingServices) {
         this.processingServices = processingServices;
     }
 
+    // The set of services is fixed once injection is done, so the lookup structure is built once
+    @PostConstruct
+    public void init() {
+        dispatchTable = new DispatchTable(processingServices);
+    }
+
     public void processService(String key) {
-        ProcessingService service = processingServices.get(key);
+        ProcessingService service = dispatchTable.get(key);
         if (service != null) {
             service.process();
         } else {
             System.out.println("No service found for key: " + key);
         }
     }
+
+    /**
+     * Resolves a bean name to a handle for {@link #processService(int)}, or {@code -1} if unknown.
+     * Callers that dispatch to the same service repeatedly resolve it once and keep the handle.
+     */
+    public int handleOf(String key) {
+        return dispatchTable.handleOf(key);
+    }
+
+    public void processService(int handle) {
+        dispatchTable.get(handle).process();
+    }
+
+    public long getMissCount() {
+        return dispatchTable.getMissCount();
+    }
 }
@@ -0,0 +1,181 @@
+package com.coherentsolutions.spring.school.section33.execution;
+
+import com.coherentsolutions.spring.school.section33.services.Batch;
+import com.coherentsolutions.spring.school.section33.services.BatchProcessingService;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.ResolvableType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Chains {@link BatchProcessingService}s as the stages of a pipeline. Every stage runs on its own thread
+ * and hands each batch it has processed to the next stage through a bounded queue, so while one
+ * stage works on batch {@code n} the stage before it is already working on batch {@code n + 1}.
+ * A full queue blocks the stage in front of it, which keeps a slow stage from being buried in work.
+ * Batches leave the last stage, in submission order, through the sink.
+ * <p>
+ * The services become stages in list order; a stage must take the item type the stage before it
+ * hands on, which is checked when the pipeline is built.
+ */
+public class BatchPipeline implements AutoCloseable {
+
+    // Marks the end of the stream; compared by identity
+    private static final Batch<?> END = new Batch<>(-1, List.of());
+
+    private final List<Stage> stages = new ArrayList<>();
+    private final Consumer<Batch<?>> sink;
+    private long startNanos;
+    private long stopNanos;
+
+    /**
+     * @throws IllegalArgumentException if a stage does not take what the stage before it produces
+     */
+    public BatchPipeline(List<BatchProcessingService<?, ?>> services, int queueCapacity, Consumer<Batch<?>> sink) {
+        this.sink = sink;
+        ResolvableType previousOutput = null;
+        for (BatchProcessingService<?, ?> service : services) {
+            ResolvableType stageType = ResolvableType.forClass(AopUtils.getTargetClass(service)).as(BatchProcessingService.class);
+            ResolvableType input = stageType.getGeneric(0);
+            // Lambdas and raw implementations leave the types unresolved; nothing to check for those
+            if (previousOutput != null && input.resolve() != null && previousOutput.resolve() != null
+                    && !input.isAssignableFrom(previousOutput)) {
+                throw new IllegalArgumentException(AopUtils.getTargetClass(service).getSimpleName() + " takes " + input
+                        + " but the stage before it produces " + previousOutput);
+            }
+            previousOutput = stageType.getGeneric(1);
+            stages.add(new Stage(service, new ArrayBlockingQueue<>(queueCapacity)));
+        }
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            Stage next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+            String threadName = "pipeline-" + (i + 1) + "-" + stage.name;
+            stage.thread = new Thread(() -> stage.run(next), threadName);
+            stage.thread.setDaemon(true);
+            stage.thread.start();
+        }
+    }
+
+    /**
+     * Hands a batch to the first stage, waiting while its queue is full.
+     */
+    public void submit(Batch<?> batch) throws InterruptedException {
+        if (stages.isEmpty()) {
+            sink.accept(batch);
+        } else {
+            stages.get(0).input.put(batch);
+        }
+    }
+
+    public List<StageMetrics> getStageMetrics() {
+        long elapsed = (stopNanos != 0 ? stopNanos : System.nanoTime()) - startNanos;
+        return stages.stream().map(stage -> stage.metrics(elapsed)).toList();
+    }
+
+    /**
+     * Lets every submitted batch run through to the sink, then stops the stage threads. If the
+     * calling thread is interrupted it returns early with its interrupt flag set.
+     */
+    @Override
+    public void close() {
+        try {
+            submit(END);
+            for (Stage stage : stages) {
+                if (stage.thread != null) {
+                    stage.thread.join();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopNanos = System.nanoTime();
+    }
+
+    private final class Stage {
+        final BatchProcessingService<Object, Object> service;
+        final String name;
+        final BlockingQueue<Batch<?>> input;
+        Thread thread;
+
+        final LongAdder batches = new LongAdder();
+        final LongAdder itemsIn = new LongAdder();
+        final LongAdder itemsOut = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder busyNanos = new LongAdder();
+        final LongAdder handoffStalls = new LongAdder();
+        final LongAdder starvations = new LongAdder();
+
+        // The item types of neighbouring stages were checked by the pipeline's constructor
+        @SuppressWarnings("unchecked")
+        Stage(BatchProcessingService<?, ?> service, BlockingQueue<Batch<?>> input) {
+            this.service = (BatchProcessingService<Object, Object>) service;
+            this.name = AopUtils.getTargetClass(service).getSimpleName();
+            this.input = input;
+        }
+
+        void run(Stage next) {
+            try {
+                while (true) {
+                    Batch<?> batch = input.poll();
+                    if (batch == null) {
+                        starvations.increment();
+                        batch = input.take();
+                    }
+                    if (batch == END) {
+                        handOff(next, END);
+                        return;
+                    }
+                    Batch<?> result = apply(batch);
+                    if (result != null) {
+                        handOff(next, result);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Batch<?> apply(Batch<?> batch) {
+            long start = System.nanoTime();
+            try {
+                Batch<?> result = service.process((Batch<Object>) batch);
+                batches.increment();
+                itemsIn.add(batch.size());
+                itemsOut.add(result != null ? result.size() : 0);
+                return result;
+            } catch (RuntimeException e) {
+                // A failing batch is dropped; the rest of the stream keeps flowing
+                failures.increment();
+                e.printStackTrace();
+                return null;
+            } finally {
+                busyNanos.add(System.nanoTime() - start);
+            }
+        }
+
+        private void handOff(Stage next, Batch<?> batch) throws InterruptedException {
+            if (next == null) {
+                if (batch != END) {
+                    sink.accept(batch);
+                }
+            } else if (!next.input.offer(batch)) {
+                handoffStalls.increment();
+                next.input.put(batch);
+            }
+        }
+
+        StageMetrics metrics(long elapsedNanos) {
+            return new StageMetrics(name, batches.sum(), itemsIn.sum(), itemsOut.sum(), failures.sum(),
+                    busyNanos.sum(), elapsedNanos, input.size(), handoffStalls.sum(), starvations.sum());
+        }
+    }
+}
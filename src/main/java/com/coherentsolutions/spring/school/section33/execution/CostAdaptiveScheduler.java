@@ -0,0 +1,112 @@
+package com.coherentsolutions.spring.school.section33.execution;
+
+import com.coherentsolutions.spring.school.section33.services.ProcessingService;
+import org.springframework.aop.support.AopUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs services one after another within a time budget, using an exponentially weighted moving
+ * average of each service's latency as its expected cost.
+ * <p>
+ * While the expected costs fit the budget the services run in the order given. Once they do not,
+ * the cheapest run first and a service is skipped when its expected cost no longer fits in what is
+ * left of the budget, so an overloaded call finishes on time with as many services done as possible.
+ * Every skip lowers the skipped service's estimate a little, so a service that was slow once is
+ * tried again eventually instead of being starved forever; that retry may overrun the budget once.
+ */
+public class CostAdaptiveScheduler {
+
+    private static final double SKIP_DECAY = 0.97;
+
+    private final double alpha;
+    private final ConcurrentHashMap<ProcessingService, Cost> costs = new ConcurrentHashMap<>();
+
+    /**
+     * @param alpha weight of the newest sample, between 0 and 1; higher reacts faster
+     */
+    public CostAdaptiveScheduler(double alpha) {
+        this.alpha = alpha;
+    }
+
+    /**
+     * @return the services that were skipped
+     */
+    public List<ProcessingService> run(Collection<? extends ProcessingService> services, long budgetMillis) {
+        long start = System.nanoTime();
+        long budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+
+        List<ProcessingService> plan = new ArrayList<>(services);
+        double expectedTotal = 0;
+        for (ProcessingService service : plan) {
+            expectedTotal += costOf(service).estimateNanos;
+        }
+        if (expectedTotal > budgetNanos) {
+            plan.sort(Comparator.comparingDouble(service -> costOf(service).estimateNanos));
+        }
+
+        List<ProcessingService> skipped = new ArrayList<>();
+        for (ProcessingService service : plan) {
+            Cost cost = costOf(service);
+            long remaining = budgetNanos - (System.nanoTime() - start);
+            if (cost.estimateNanos > remaining) {
+                cost.skip();
+                skipped.add(service);
+                continue;
+            }
+            long serviceStart = System.nanoTime();
+            try {
+                service.process();
+            } finally {
+                cost.record(System.nanoTime() - serviceStart);
+            }
+        }
+        return skipped;
+    }
+
+    private Cost costOf(ProcessingService service) {
+        return costs.computeIfAbsent(service, key -> new Cost(AopUtils.getTargetClass(key).getSimpleName()));
+    }
+
+    public List<ServiceCost> getCosts() {
+        return costs.values().stream()
+                .map(cost -> new ServiceCost(cost.name, cost.estimateNanos / 1e3, cost.runs.sum(), cost.skips.sum()))
+                .sorted(Comparator.comparingDouble(ServiceCost::ewmaMicros))
+                .toList();
+    }
+
+    public record ServiceCost(String service, double ewmaMicros, long runs, long skips) {
+        @Override
+        public String toString() {
+            return String.format("%s{ewma=%.1f us, runs=%d, skips=%d}", service, ewmaMicros, runs, skips);
+        }
+    }
+
+    private final class Cost {
+        final String name;
+        final LongAdder runs = new LongAdder();
+        final LongAdder skips = new LongAdder();
+        // Zero until the first run, so a new service is always tried
+        volatile double estimateNanos;
+
+        Cost(String name) {
+            this.name = name;
+        }
+
+        synchronized void record(long nanos) {
+            estimateNanos = runs.sum() == 0 ? nanos : alpha * nanos + (1 - alpha) * estimateNanos;
+            runs.increment();
+        }
+
+        synchronized void skip() {
+            estimateNanos *= SKIP_DECAY;
+            skips.increment();
+        }
+    }
+}
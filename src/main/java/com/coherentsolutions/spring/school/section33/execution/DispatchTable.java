@@ -0,0 +1,140 @@
+package com.coherentsolutions.spring.school.section33.execution;
+
+import com.coherentsolutions.spring.school.section33.services.ProcessingService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Immutable name-to-service table built once from a fixed set of bean names.
+ * <p>
+ * Names are placed with a minimal perfect hash (hash and displace): the first hash picks a bucket,
+ * and the bucket's displacement, found at build time, sends each of its names to its own slot, so
+ * {@code n} names fill exactly {@code n} slots and a lookup is two array reads and one
+ * {@code equals}. Callers on a hot path can resolve a name to an integer handle once and then
+ * dispatch by array index. Lookups of unknown names are counted.
+ */
+public final class DispatchTable {
+
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+
+    private final String[] names;
+    private final ProcessingService[] services;
+    private final int[] displacements;
+    private final LongAdder misses = new LongAdder();
+
+    public DispatchTable(Map<String, ? extends ProcessingService> source) {
+        int size = source.size();
+        names = new String[size];
+        services = new ProcessingService[size];
+        displacements = new int[Math.max(size, 1)];
+
+        List<List<String>> buckets = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (String name : source.keySet()) {
+            buckets.get(reduce(mix(name.hashCode()), size)).add(name);
+        }
+        // Place the largest buckets first, while there are still many free slots
+        Integer[] order = new Integer[size];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingInt((Integer bucket) -> buckets.get(bucket).size()).reversed());
+
+        for (int bucket : order) {
+            List<String> members = buckets.get(bucket);
+            if (members.isEmpty()) {
+                break;
+            }
+            int displacement = findDisplacement(members, size);
+            displacements[bucket] = displacement;
+            for (String name : members) {
+                int slot = slotOf(mix(name.hashCode()), displacement, size);
+                names[slot] = name;
+                services[slot] = source.get(name);
+            }
+        }
+    }
+
+    private int findDisplacement(List<String> members, int size) {
+        int[] slots = new int[members.size()];
+        for (int displacement = 1; displacement < MAX_DISPLACEMENT; displacement++) {
+            boolean fits = true;
+            for (int i = 0; i < members.size() && fits; i++) {
+                slots[i] = slotOf(mix(members.get(i).hashCode()), displacement, size);
+                fits = names[slots[i]] == null;
+                for (int j = 0; j < i && fits; j++) {
+                    fits = slots[j] != slots[i];
+                }
+            }
+            if (fits) {
+                return displacement;
+            }
+        }
+        throw new IllegalArgumentException("Cannot build a perfect hash for " + members
+                + "; names with equal hash codes cannot be told apart");
+    }
+
+    /**
+     * @return the handle of {@code name}, or {@code -1} if there is no service with that name
+     */
+    public int handleOf(String name) {
+        int size = names.length;
+        if (size != 0) {
+            int hash = mix(name.hashCode());
+            int slot = slotOf(hash, displacements[reduce(hash, size)], size);
+            if (name.equals(names[slot])) {
+                return slot;
+            }
+        }
+        misses.increment();
+        return -1;
+    }
+
+    /**
+     * @return the service for {@code name}, or {@code null} if there is none
+     */
+    public ProcessingService get(String name) {
+        int handle = handleOf(name);
+        return handle < 0 ? null : services[handle];
+    }
+
+    /**
+     * @throws ArrayIndexOutOfBoundsException if the handle was not returned by {@link #handleOf}
+     */
+    public ProcessingService get(int handle) {
+        return services[handle];
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    // The bucket takes the high bits of the mixed hash; the multiply moves the low bits up for the slot
+    private static int slotOf(int mixedHash, int displacement, int size) {
+        return reduce((mixedHash ^ displacement) * 0x9E3779B9, size);
+    }
+
+    // Maps a 32-bit hash onto [0, size) with a multiply and shift instead of a division
+    private static int reduce(int hash, int size) {
+        return (int) (((hash & 0xFFFFFFFFL) * size) >>> 32);
+    }
+
+    // Finalizer of MurmurHash3, so that nearby hash codes land far apart
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
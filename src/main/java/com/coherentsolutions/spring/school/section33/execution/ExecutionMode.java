@@ -0,0 +1,10 @@
+package com.coherentsolutions.spring.school.section33.execution;
+
+public enum ExecutionMode {
+    // One service after another on the caller's thread
+    SEQUENTIAL,
+    // All services at once, one virtual thread each
+    PARALLEL,
+    // Services grouped by @Order value; groups run in order, services within a group in parallel
+    ORDERED
+}
@@ -0,0 +1,91 @@
+package com.coherentsolutions.spring.school.section33.execution;
+
+import com.coherentsolutions.spring.school.section33.services.ProcessingService;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.OrderUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a set of {@link ProcessingService}s according to an {@link ExecutionMode} under one overall
+ * timeout. In the parallel modes every service gets its own virtual thread, so services that block
+ * on I/O overlap and the total latency approaches that of the slowest one.
+ */
+public final class ProcessingExecutor {
+
+    private ProcessingExecutor() {
+    }
+
+    /**
+     * @throws TimeoutException if the services did not all finish within {@code timeoutMillis};
+     *                          the ones still running are interrupted
+     */
+    public static void run(Collection<? extends ProcessingService> services, ExecutionMode mode, long timeoutMillis)
+            throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        switch (mode) {
+            case SEQUENTIAL -> {
+                for (ProcessingService service : services) {
+                    service.process();
+                }
+            }
+            case PARALLEL -> runStage(new ArrayList<>(services), deadline);
+            case ORDERED -> {
+                for (List<ProcessingService> stage : stagesByOrder(services).values()) {
+                    runStage(stage, deadline);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the services grouped as {@link ExecutionMode#ORDERED} runs them, by ascending
+     * {@code @Order} value; services without one come last
+     */
+    public static Map<Integer, List<ProcessingService>> stagesByOrder(Collection<? extends ProcessingService> services) {
+        Map<Integer, List<ProcessingService>> stages = new TreeMap<>();
+        for (ProcessingService service : services) {
+            // Look through AOP proxies, which do not carry the @Order annotation
+            int order = OrderUtils.getOrder(AopUtils.getTargetClass(service), Ordered.LOWEST_PRECEDENCE);
+            stages.computeIfAbsent(order, key -> new ArrayList<>()).add(service);
+        }
+        return stages;
+    }
+
+    private static void runStage(List<ProcessingService> stage, long deadline)
+            throws InterruptedException, TimeoutException {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<?>> futures = new ArrayList<>(stage.size());
+        try {
+            for (ProcessingService service : stage) {
+                futures.add(executor.submit(() -> service.process()));
+            }
+            for (Future<?> future : futures) {
+                future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw (Error) cause;
+        } finally {
+            // No-op for finished services; interrupts the rest after a timeout or failure
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.coherentsolutions.spring.school.section33.execution;
+
+/**
+ * Counters of one {@link BatchPipeline} stage. The slow stage is the one with the highest busy
+ * share; its input queue sits full and the stage before it keeps stalling on the handoff.
+ *
+ * @param inputQueueDepth batches waiting in front of this stage right now
+ * @param handoffStalls   times this stage found the next stage's queue full and had to wait
+ * @param starvations     times this stage found its input queue empty and had to wait
+ */
+public record StageMetrics(String stage, long batches, long itemsIn, long itemsOut, long failures,
+                           long busyNanos, long elapsedNanos, int inputQueueDepth,
+                           long handoffStalls, long starvations) {
+
+    public double batchesPerSecond() {
+        return elapsedNanos == 0 ? 0 : batches * 1e9 / elapsedNanos;
+    }
+
+    public double busyRatio() {
+        return elapsedNanos == 0 ? 0 : (double) busyNanos / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{batches=%d, items=%d->%d, failures=%d, %.0f batches/s, busy=%.0f%%, "
+                        + "queueDepth=%d, handoffStalls=%d, starvations=%d}",
+                stage, batches, itemsIn, itemsOut, failures, batchesPerSecond(), busyRatio() * 100,
+                inputQueueDepth, handoffStalls, starvations);
+    }
+}
@@ -0,0 +1,27 @@
+package com.coherentsolutions.spring.school.section33.services;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A numbered group of items handed from one processing stage to the next.
+ */
+public record Batch<T>(long sequence, List<T> items) {
+
+    public Batch {
+        items = List.copyOf(items);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public <R> Batch<R> map(Function<? super T, ? extends R> mapper) {
+        return new Batch<>(sequence, items.stream().<R>map(mapper).toList());
+    }
+
+    public Batch<T> filter(Predicate<? super T> predicate) {
+        return new Batch<>(sequence, items.stream().filter(predicate).toList());
+    }
+}
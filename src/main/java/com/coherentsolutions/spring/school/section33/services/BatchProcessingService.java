@@ -0,0 +1,15 @@
+package com.coherentsolutions.spring.school.section33.services;
+
+/**
+ * A service that can run as a stage of a batch pipeline.
+ *
+ * @param <I> type of the items the stage takes
+ * @param <O> type of the items it hands to the next stage
+ */
+public interface BatchProcessingService<I, O> {
+
+    /**
+     * Processes one batch and returns the batch for the next stage.
+     */
+    Batch<O> process(Batch<I> batch);
+}
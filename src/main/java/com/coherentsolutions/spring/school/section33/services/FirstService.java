@@ -1,11 +1,19 @@
 package com.coherentsolutions.spring.school.section33.services;
 
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+@Order(1)
 @Component
-public class FirstService implements ProcessingService {
+public class FirstService implements ProcessingService, BatchProcessingService<String, String> {
     @Override
     public void process() {
         System.out.println("Processing in FirstService");
     }
+
+    // Normalizes the raw items to trimmed, lower-case text
+    @Override
+    public Batch<String> process(Batch<String> batch) {
+        return batch.map(item -> item.trim().toLowerCase());
+    }
 }
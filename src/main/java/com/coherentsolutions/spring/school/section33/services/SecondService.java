@@ -1,11 +1,19 @@
 package com.coherentsolutions.spring.school.section33.services;
 
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+@Order(2)
 @Component
-public class SecondService implements ProcessingService {
+public class SecondService implements ProcessingService, BatchProcessingService<String, String> {
     @Override
     public void process() {
         System.out.println("Processing in SecondService");
     }
+
+    // Drops the blank items
+    @Override
+    public Batch<String> process(Batch<String> batch) {
+        return batch.filter(item -> !item.isEmpty());
+    }
 }
@@ -1,11 +1,19 @@
 package com.coherentsolutions.spring.school.section33.services;
 
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+@Order(3)
 @Component
-public class ThirdService implements ProcessingService {
+public class ThirdService implements ProcessingService, BatchProcessingService<String, Integer> {
     @Override
     public void process() {
         System.out.println("Processing in ThirdService");
     }
+
+    // Reduces each item to its length
+    @Override
+    public Batch<Integer> process(Batch<String> batch) {
+        return batch.map(item -> item.length());
+    }
 }
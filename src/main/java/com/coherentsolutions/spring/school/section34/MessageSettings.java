@@ -0,0 +1,7 @@
+package com.coherentsolutions.spring.school.section34;
+
+/**
+ * The values the {@code MyBean}s print, resolved and converted once per refresh.
+ */
+public record MessageSettings(String message, int number) {
+}
@@ -1,9 +1,18 @@
 package com.coherentsolutions.spring.school.section34.ex01value;
 
+import com.coherentsolutions.spring.school.section34.MessageSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 @ComponentScan(basePackages = "com.coherentsolutions.spring.school.section34.ex01value")
 public class AppConfig {
+
+    // The @Value literals are converted once here instead of in every MyBean
+    @Bean
+    public MessageSettings messageSettings(@Value("Hello, World!") String message, @Value("42") int number) {
+        return new MessageSettings(message, number);
+    }
 }
@@ -1,11 +1,21 @@
 package com.coherentsolutions.spring.school.section34.ex02property;
 
+import com.coherentsolutions.spring.school.section34.MessageSettings;
+import com.coherentsolutions.spring.school.support.config.ConfigSnapshots;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
 
 @Configuration
 @ComponentScan(basePackages = "com.coherentsolutions.spring.school.section34.ex02property")
 @PropertySource("classpath:application.properties")
 public class AppConfig {
+
+    // Binds ${message} and ${number}
+    @Bean
+    public MessageSettings messageSettings(Environment environment) {
+        return ConfigSnapshots.bind(MessageSettings.class, "", environment);
+    }
 }
@@ -1,19 +1,19 @@
 package com.coherentsolutions.spring.school.section34.ex02property;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.coherentsolutions.spring.school.section34.MessageSettings;
 import org.springframework.stereotype.Component;
 
 @Component
 public class MyBean {
 
-    @Value("${message}")
-    private String message;
+    private final MessageSettings settings;
 
-    @Value("${number}")
-    private int number;
+    public MyBean(MessageSettings settings) {
+        this.settings = settings;
+    }
 
     public void printValues() {
-        System.out.println("Message: " + message);
-        System.out.println("Number: " + number);
+        System.out.println("Message: " + settings.message());
+        System.out.println("Number: " + settings.number());
     }
 }
@@ -0,0 +1,25 @@
+package com.coherentsolutions.spring.school.section34.ex03xml;
+
+import com.coherentsolutions.spring.school.support.xml.CachedXmlApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// The first start parses the XML and writes the cache; the second one reads the cache instead
+public class CachedMainApp {
+    public static void main(String[] args) throws Exception {
+        Path cacheFile = Files.createTempFile("applicationContext35", ".beans");
+        Files.delete(cacheFile);
+        try {
+            for (int start = 1; start <= 2; start++) {
+                try (CachedXmlApplicationContext context = new CachedXmlApplicationContext(cacheFile, "applicationContext35.xml")) {
+                    System.out.println("Start " + start + ": bean definitions "
+                            + (context.isLoadedFromCache() ? "read from " + cacheFile : "parsed from XML"));
+                    context.getBean(MyBean.class).printValues();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+}
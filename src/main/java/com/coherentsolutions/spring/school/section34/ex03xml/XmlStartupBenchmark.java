@@ -0,0 +1,43 @@
+package com.coherentsolutions.spring.school.section34.ex03xml;
+
+import com.coherentsolutions.spring.school.support.xml.CachedXmlApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+// Time to start and close the XML context, parsing the XML every time or reading the definition cache
+public class XmlStartupBenchmark {
+
+    private static final int STARTS = 500;
+
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        Path cacheFile = Files.createTempFile("applicationContext35", ".beans");
+        Files.delete(cacheFile);
+        try {
+            // The first round warms up
+            for (int round = 1; round <= 3; round++) {
+                System.out.println("Round " + round + ":");
+                measure("XML", () -> new ClassPathXmlApplicationContext("applicationContext35.xml"));
+                measure("definition cache", () -> new CachedXmlApplicationContext(cacheFile, "applicationContext35.xml"));
+            }
+            System.out.println("Cache file: " + Files.size(cacheFile) + " bytes");
+        } finally {
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+
+    private static void measure(String label, Supplier<ConfigurableApplicationContext> start) {
+        long begin = System.nanoTime();
+        for (int i = 0; i < STARTS; i++) {
+            try (ConfigurableApplicationContext context = start.get()) {
+                sink += context.getBean(MyBean.class).hashCode();
+            }
+        }
+        System.out.printf("  %s: %.0f us per start%n", label, (System.nanoTime() - begin) / 1e3 / STARTS);
+    }
+}
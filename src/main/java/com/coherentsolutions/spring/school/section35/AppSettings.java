@@ -0,0 +1,14 @@
+package com.coherentsolutions.spring.school.section35;
+
+/**
+ * The application and database properties, bound once per refresh with
+ * {@link com.coherentsolutions.spring.school.support.config.ConfigSnapshots}.
+ */
+public record AppSettings(App app, Db db) {
+
+    public record App(String name, String version) {
+    }
+
+    public record Db(String url, String username, String password) {
+    }
+}
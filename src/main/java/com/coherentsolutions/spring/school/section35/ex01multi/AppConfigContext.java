@@ -1,18 +1,30 @@
 package com.coherentsolutions.spring.school.section35.ex01multi;
 
+import com.coherentsolutions.spring.school.section35.AppSettings;
+import com.coherentsolutions.spring.school.support.config.ReloadableConfig;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.ConfigurableEnvironment;
 
 @Configuration
 @ComponentScan(basePackages = "com.coherentsolutions.spring.school.section35.ex01multi")
-@PropertySource({"classpath:application35.properties", "classpath:database.properties"})
+@PropertySource({"classpath:application35.properties", AppConfigContext.DATABASE_PROPERTIES})
 public class AppConfigContext {
 
+    // ReloadMainApp points this at a copy it is free to edit
+    static final String DATABASE_PROPERTIES = "${config.database-location:classpath:database.properties}";
+
     @Bean
     public static PropertySourcesPlaceholderConfigurer propertyConfigInDev() {
         return new PropertySourcesPlaceholderConfigurer();
     }
+
+    @Bean
+    public ReloadableConfig<AppSettings> appSettings(ConfigurableEnvironment environment) {
+        return new ReloadableConfig<>(AppSettings.class, "", environment,
+                "classpath:application35.properties", DATABASE_PROPERTIES);
+    }
 }
@@ -0,0 +1,63 @@
+package com.coherentsolutions.spring.school.section35.ex01multi;
+
+import com.coherentsolutions.spring.school.section35.AppSettings;
+import com.coherentsolutions.spring.school.support.config.ReloadableConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+// Cost of creating a prototype that needs the five properties: field by field, or as one snapshot
+public class ConfigSnapshotBenchmark {
+
+    private static final int INSTANCES = 200_000;
+
+    private static int sink;
+
+    public static void main(String[] args) {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(AppConfigContext.class);
+            context.registerBean("valueConsumer", ValueConsumer.class,
+                    definition -> definition.setScope(BeanDefinition.SCOPE_PROTOTYPE));
+            context.registerBean("snapshotConsumer", SnapshotConsumer.class,
+                    definition -> definition.setScope(BeanDefinition.SCOPE_PROTOTYPE));
+            context.refresh();
+
+            // The first round warms up
+            for (int round = 1; round <= 3; round++) {
+                System.out.println("Round " + round + ":");
+                measure("@Value fields", () -> sink += context.getBean(ValueConsumer.class).dbUrl.length());
+                measure("settings snapshot", () -> sink += context.getBean(SnapshotConsumer.class).settings.get().db().url().length());
+            }
+        }
+    }
+
+    private static void measure(String label, Runnable getBean) {
+        long start = System.nanoTime();
+        for (int i = 0; i < INSTANCES; i++) {
+            getBean.run();
+        }
+        System.out.printf("  %s: %.0f ns per getBean%n", label, (double) (System.nanoTime() - start) / INSTANCES);
+    }
+
+    // Every instance resolves and converts all five placeholders again
+    static class ValueConsumer {
+        @Value("${app.name}")
+        String appName;
+        @Value("${app.version}")
+        String appVersion;
+        @Value("${db.url}")
+        String dbUrl;
+        @Value("${db.username}")
+        String dbUsername;
+        @Value("${db.password}")
+        String dbPassword;
+    }
+
+    static class SnapshotConsumer {
+        final ReloadableConfig<AppSettings> settings;
+
+        SnapshotConsumer(ReloadableConfig<AppSettings> settings) {
+            this.settings = settings;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.coherentsolutions.spring.school.section35.ex01multi;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Changes a copy of database.properties while the context is running; AppConfig is told without a refresh
+public class ReloadMainApp {
+    public static void main(String[] args) throws Exception {
+        // A copy, so that the file on the classpath stays intact even if the JVM is killed halfway
+        Path file = Files.createTempFile("database-", ".properties");
+        try (InputStream in = new ClassPathResource("database.properties").getInputStream()) {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        String original = Files.readString(file);
+        System.setProperty("config.database-location", file.toUri().toString());
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AppConfigContext.class)) {
+            context.getBean(AppConfig.class).printConfig();
+
+            System.out.println("Changing db.username in " + file);
+            Files.writeString(file, original.replaceFirst("(?m)^db\\.username=.*$", "db.username=reloaded_user"));
+            Thread.sleep(1_000);
+
+            System.out.println("Removing db.url, which the settings require:");
+            Files.writeString(file, original.replaceFirst("(?m)^db\\.url=.*$", ""));
+            Thread.sleep(1_000);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
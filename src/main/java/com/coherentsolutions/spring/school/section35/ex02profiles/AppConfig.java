@@ -1,31 +1,33 @@
 package com.coherentsolutions.spring.school.section35.ex02profiles;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.coherentsolutions.spring.school.section35.AppSettings;
+import com.coherentsolutions.spring.school.support.config.ConfigListener;
+import com.coherentsolutions.spring.school.support.config.ReloadableConfig;
 import org.springframework.stereotype.Component;
 
 @Component
-public class AppConfig {
+public class AppConfig implements ConfigListener<AppSettings> {
 
-    @Value("${app.name}")
-    private String appName;
+    // Resolved once per change of the files and shared, rather than injected field by field into every instance
+    private final ReloadableConfig<AppSettings> settings;
 
-    @Value("${app.version}")
-    private String appVersion;
-
-    @Value("${db.url}")
-    private String dbUrl;
-
-    @Value("${db.username}")
-    private String dbUsername;
+    public AppConfig(ReloadableConfig<AppSettings> settings) {
+        this.settings = settings;
+    }
 
-    @Value("${db.password}")
-    private String dbPassword;
+    @Override
+    public void configChanged(AppSettings previous, AppSettings current) {
+        System.out.println("Settings reloaded:");
+        printConfig();
+    }
 
     public void printConfig() {
-        System.out.println("App Name: " + appName);
-        System.out.println("App Version: " + appVersion);
-        System.out.println("DB URL: " + dbUrl);
-        System.out.println("DB Username: " + dbUsername);
-        System.out.println("DB Password: " + dbPassword);
+        // One snapshot, so the values printed always belong together
+        AppSettings settings = this.settings.get();
+        System.out.println("App Name: " + settings.app().name());
+        System.out.println("App Version: " + settings.app().version());
+        System.out.println("DB URL: " + settings.db().url());
+        System.out.println("DB Username: " + settings.db().username());
+        System.out.println("DB Password: " + settings.db().password());
     }
 }
@@ -1,11 +1,14 @@
 package com.coherentsolutions.spring.school.section35.ex02profiles;
 
+import com.coherentsolutions.spring.school.section35.AppSettings;
+import com.coherentsolutions.spring.school.support.config.ReloadableConfig;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.ConfigurableEnvironment;
 
 @Configuration
 @ComponentScan(basePackages = "com.coherentsolutions.spring.school.section35.ex02profiles")
@@ -16,6 +19,13 @@ public class AppConfigContext {
         return new PropertySourcesPlaceholderConfigurer();
     }
 
+    // Only the file of the active profile is watched
+    @Bean
+    public ReloadableConfig<AppSettings> appSettings(ConfigurableEnvironment environment) {
+        return new ReloadableConfig<>(AppSettings.class, "", environment,
+                "classpath:application-dev.properties", "classpath:application-prod.properties");
+    }
+
     @Configuration
     @Profile("dev")
     @PropertySource("classpath:application-dev.properties")
@@ -3,8 +3,11 @@ package com.coherentsolutions.spring.school.section42;
 
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
 
 @Configuration
-@ComponentScan(basePackages = "com.coherentsolutions.spring.school.section42")
+// LatencyAppConfig is opt-in and imports this class, so the scan must not pick it up
+@ComponentScan(basePackages = "com.coherentsolutions.spring.school.section42",
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = LatencyAppConfig.class))
 public class AppConfig {
 }
@@ -0,0 +1,17 @@
+package com.coherentsolutions.spring.school.section42;
+
+import com.coherentsolutions.spring.school.support.metrics.LatencyAspect;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+@Configuration
+@Import(AppConfig.class)
+public class LatencyAppConfig {
+
+    // Static, so that registering the post-processor does not instantiate this class first
+    @Bean
+    public static LatencyAspect latencyAspect() {
+        return new LatencyAspect("execution(void com.coherentsolutions.spring.school.section42.IService.performAction())");
+    }
+}
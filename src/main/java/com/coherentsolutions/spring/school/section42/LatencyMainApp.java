@@ -0,0 +1,45 @@
+package com.coherentsolutions.spring.school.section42;
+
+import com.coherentsolutions.spring.school.support.metrics.LatencyAspect;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+
+public class LatencyMainApp {
+    public static void main(String[] args) throws Exception {
+        System.setProperty("metrics.latency.report-interval-seconds", "1");
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(LatencyAppConfig.class)) {
+            Map<String, IService> services = context.getBeansOfType(IService.class);
+
+            // The services print on every call; keep only the periodic reports while generating load
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()) {
+                @Override
+                public void println(String line) {
+                    if (line.startsWith("Latency ")) {
+                        console.println(line);
+                    }
+                }
+            });
+            long start = System.nanoTime();
+            int calls = 0;
+            try {
+                while (System.nanoTime() - start < 2_500_000_000L) {
+                    for (IService service : services.values()) {
+                        service.performAction();
+                        calls++;
+                    }
+                }
+            } finally {
+                System.setOut(console);
+            }
+
+            System.out.println(calls + " calls; final percentiles:");
+            context.getBean(LatencyAspect.class).getSnapshots()
+                    .forEach((name, snapshot) -> System.out.println("  " + name + ": " + snapshot));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.coherentsolutions.spring.school.support.bootstrap;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a bean whose {@code @PostConstruct} methods are slow enough to run off the startup thread.
+ * Only has an effect in contexts that import {@link BackgroundInitConfig}; elsewhere the bean is
+ * initialized as usual.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface BackgroundInit {
+}
@@ -0,0 +1,245 @@
+package com.coherentsolutions.spring.school.support.bootstrap;
+
+import org.springframework.aop.TargetSource;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import javax.annotation.PostConstruct;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the {@code @PostConstruct} methods of {@link BackgroundInit} beans on a bootstrap executor,
+ * so that slow initializations overlap with each other and with the rest of the startup.
+ * <p>
+ * Before the common annotation post-processor looks at such a bean, its {@code @PostConstruct}
+ * methods are registered as externally managed, which makes Spring skip them. Once the bean is
+ * otherwise initialized they are submitted to the executor, and dependents receive a proxy that
+ * waits for the initialization on its first method call. Refresh completes once every background
+ * initialization has finished, and fails if one of them fails or if refresh would have to wait
+ * for them longer than {@code bootstrap.timeout-ms}. A bean's destruction waits for its initialization, so
+ * {@code @PreDestroy} never runs concurrently with {@code @PostConstruct}.
+ */
+public class BackgroundInitializer implements MergedBeanDefinitionPostProcessor, DestructionAwareBeanPostProcessor,
+        PriorityOrdered, EnvironmentAware, SmartInitializingSingleton {
+
+    private final Map<String, List<Method>> deferredInitMethods = new ConcurrentHashMap<>();
+    private final Map<String, Future<?>> initializations = new LinkedHashMap<>();
+    private long timeoutMillis;
+    private ExecutorService executor;
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    // Read from the environment because placeholders in @Value are not resolved yet for BeanPostProcessors
+    @Override
+    public void setEnvironment(Environment environment) {
+        timeoutMillis = environment.getProperty("bootstrap.timeout-ms", Long.class, 30_000L);
+    }
+
+    @Override
+    public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
+        if (!beanDefinition.isSingleton() || !beanType.isAnnotationPresent(BackgroundInit.class)) {
+            return;
+        }
+        List<Method> initMethods = findPostConstructMethods(beanType);
+        for (Method method : initMethods) {
+            beanDefinition.registerExternallyManagedInitMethod(identifierOf(method, beanType));
+        }
+        if (!initMethods.isEmpty()) {
+            deferredInitMethods.put(beanName, initMethods);
+        }
+    }
+
+    // Superclass methods first, as Spring would call them
+    private static List<Method> findPostConstructMethods(Class<?> beanType) {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> type = beanType; type != null && type != Object.class; type = type.getSuperclass()) {
+            hierarchy.add(0, type);
+        }
+        List<Method> methods = new ArrayList<>();
+        for (Class<?> type : hierarchy) {
+            ReflectionUtils.doWithLocalMethods(type, method -> {
+                if (method.isAnnotationPresent(PostConstruct.class)) {
+                    methods.removeIf(existing -> !Modifier.isPrivate(existing.getModifiers())
+                            && existing.getName().equals(method.getName()));
+                    methods.add(method);
+                }
+            });
+        }
+        return methods;
+    }
+
+    // Must match the identifier the annotation post-processor uses for the same method
+    private static String identifierOf(Method method, Class<?> beanType) {
+        int modifiers = method.getModifiers();
+        boolean notVisible = Modifier.isPrivate(modifiers)
+                || (!method.getDeclaringClass().getPackageName().equals(beanType.getPackageName())
+                && !Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers));
+        return notVisible ? ClassUtils.getQualifiedMethodName(method) : method.getName();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        List<Method> initMethods = deferredInitMethods.remove(beanName);
+        if (initMethods == null) {
+            return bean;
+        }
+        Future<?> initialization = executor().submit(() -> {
+            for (Method method : initMethods) {
+                ReflectionUtils.makeAccessible(method);
+                method.invoke(bean);
+            }
+            return null;
+        });
+        synchronized (initializations) {
+            initializations.put(beanName, initialization);
+        }
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.setTargetSource(new AwaitingTargetSource(bean, beanName, initialization));
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "bootstrap-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<String, Future<?>> pending;
+        synchronized (initializations) {
+            pending = new LinkedHashMap<>(initializations);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            for (Map.Entry<String, Future<?>> entry : pending.entrySet()) {
+                try {
+                    entry.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    pending.values().forEach(initialization -> initialization.cancel(true));
+                    throw new BeanInitializationException("Background initialization of '" + entry.getKey()
+                            + "' did not finish within " + timeoutMillis + " ms");
+                } catch (ExecutionException e) {
+                    pending.values().forEach(initialization -> initialization.cancel(true));
+                    throw new BeanCreationException(entry.getKey(), "Background initialization failed", unwrap(e));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new BeanInitializationException("Interrupted while waiting for '" + entry.getKey() + "'", e);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                if (executor != null) {
+                    // Beans created later, such as lazy ones, get a new executor
+                    executor.shutdown();
+                    executor = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void postProcessBeforeDestruction(Object bean, String beanName) {
+        Future<?> initialization;
+        synchronized (initializations) {
+            initialization = initializations.get(beanName);
+        }
+        if (initialization != null && !initialization.isDone()) {
+            try {
+                initialization.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException | CancellationException e) {
+                // The failure was already reported when the context was refreshed
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresDestruction(Object bean) {
+        return true;
+    }
+
+    private static Throwable unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof InvocationTargetException invocation ? invocation.getTargetException() : cause;
+    }
+
+    /**
+     * Hands out the bean only once its background initialization has completed.
+     */
+    private final class AwaitingTargetSource implements TargetSource {
+        private final Object bean;
+        private final String beanName;
+        private final Future<?> initialization;
+
+        AwaitingTargetSource(Object bean, String beanName, Future<?> initialization) {
+            this.bean = bean;
+            this.beanName = beanName;
+            this.initialization = initialization;
+        }
+
+        @Override
+        public Class<?> getTargetClass() {
+            return bean.getClass();
+        }
+
+        @Override
+        public boolean isStatic() {
+            return false;
+        }
+
+        @Override
+        public Object getTarget() throws Exception {
+            // Returns at once after the first call
+            try {
+                initialization.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("'" + beanName + "' is still initializing after " + timeoutMillis + " ms");
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("'" + beanName + "' failed to initialize", unwrap(e));
+            }
+            return bean;
+        }
+
+        @Override
+        public void releaseTarget(Object target) {
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.coherentsolutions.spring.school.support.cache;
+
+/**
+ * Point-in-time counters of a {@link TinyLfuCache}.
+ */
+public record CacheStats(long hits, long misses, long loads, long evictions, long rejections,
+                         long expirations, int size) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, hitRate=%.1f%%, loads=%d, evictions=%d, rejections=%d, expirations=%d, size=%d",
+                hits, misses, hitRate() * 100, loads, evictions, rejections, expirations, size);
+    }
+}
@@ -0,0 +1,183 @@
+package com.coherentsolutions.spring.school.support.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Size-bounded read-through cache with TinyLFU admission and a time-to-live.
+ * <p>
+ * Values are read from a {@link ConcurrentHashMap} without locking. Recency order and the
+ * {@link FrequencySketch} are maintained under an eviction lock that readers only {@code tryLock};
+ * when it is contended the read is simply not recorded, which costs a little accuracy and no latency.
+ * When the cache is full a newly loaded key is only admitted if the sketch says it has been
+ * requested more often than the least recently used entry it would replace, so one-off lookups
+ * cannot flush the hot set.
+ * <p>
+ * Concurrent misses on the same key share a single load. A key invalidated while it is being loaded
+ * is not cached when that load completes, since the load may have read the value from before the change.
+ */
+public class TinyLfuCache<K, V> {
+
+    private final int maximumSize;
+    private final long ttlNanos;
+
+    private final ConcurrentHashMap<K, Node<V>> data = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LinkedHashMap<K, Node<V>> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public TinyLfuCache(int maximumSize, long ttl, TimeUnit unit) {
+        // Admission compares a candidate with the eviction victim, so there has to be room for one entry
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be at least 1: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Returns the cached value for {@code key}, loading it with {@code loader} on a miss.
+     * {@code null} results are returned but not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Node<V> node = data.get(key);
+        if (node != null && !node.isExpired(System.nanoTime())) {
+            hits.increment();
+            recordRead(key);
+            return node.value;
+        }
+        misses.increment();
+        if (node != null) {
+            expire(key, node);
+        }
+        return load(key, loader);
+    }
+
+    private V load(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loading.putIfAbsent(key, future);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+        try {
+            loads.increment();
+            V value = loader.apply(key);
+            if (value != null) {
+                admit(key, new Node<>(value, System.nanoTime() + ttlNanos), future);
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private void recordRead(K key) {
+        if (evictionLock.tryLock()) {
+            try {
+                sketch.increment(key);
+                accessOrder.get(key);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void admit(K key, Node<V> node, CompletableFuture<V> load) {
+        evictionLock.lock();
+        try {
+            if (loading.get(key) != load) {
+                // Invalidated while loading
+                return;
+            }
+            sketch.increment(key);
+            if (!accessOrder.containsKey(key) && accessOrder.size() >= maximumSize) {
+                Iterator<Map.Entry<K, Node<V>>> eldest = accessOrder.entrySet().iterator();
+                Map.Entry<K, Node<V>> victim = eldest.next();
+                boolean victimExpired = victim.getValue().isExpired(System.nanoTime());
+                if (!victimExpired && sketch.frequency(key) <= sketch.frequency(victim.getKey())) {
+                    rejections.increment();
+                    return;
+                }
+                eldest.remove();
+                data.remove(victim.getKey(), victim.getValue());
+                evictions.increment();
+            }
+            accessOrder.put(key, node);
+            data.put(key, node);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void expire(K key, Node<V> node) {
+        evictionLock.lock();
+        try {
+            if (data.remove(key, node)) {
+                accessOrder.remove(key);
+                expirations.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        evictionLock.lock();
+        try {
+            // The running load, if any, completes for its callers but is no longer admitted
+            loading.remove(key);
+            accessOrder.remove(key);
+            data.remove(key);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), loads.sum(), evictions.sum(),
+                rejections.sum(), expirations.sum(), data.size());
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return e;
+    }
+
+    private record Node<V>(V value, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
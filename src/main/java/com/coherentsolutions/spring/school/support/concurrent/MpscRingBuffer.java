@@ -0,0 +1,84 @@
+package com.coherentsolutions.spring.school.support.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer.
+ * <p>
+ * Producers claim a sequence number with a CAS and then publish their element into the slot; the
+ * consumer treats a {@code null} slot as "not published yet" and stops there, so a slow producer
+ * can delay, but never corrupt, the elements behind it.
+ */
+public final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong producerSequence = new AtomicLong();
+    // Only written by the consumer thread
+    private volatile long consumerSequence;
+
+    public MpscRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * @return {@code false} if the buffer is full
+     */
+    public boolean offer(E element) {
+        long sequence;
+        do {
+            sequence = producerSequence.get();
+            if (sequence - consumerSequence >= capacity) {
+                return false;
+            }
+        } while (!producerSequence.compareAndSet(sequence, sequence + 1));
+        slots.setRelease((int) sequence & mask, element);
+        return true;
+    }
+
+    /**
+     * Hands up to {@code limit} published elements to {@code sink}, in order. Consumer thread only.
+     *
+     * @return the number of elements drained
+     */
+    public int drain(Consumer<? super E> sink, int limit) {
+        long sequence = consumerSequence;
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) sequence & mask;
+            E element = slots.getAcquire(index);
+            if (element == null) {
+                break;
+            }
+            slots.setPlain(index, null);
+            sequence++;
+            drained++;
+            sink.accept(element);
+        }
+        if (drained > 0) {
+            // Volatile write publishes the cleared slots to producers
+            consumerSequence = sequence;
+        }
+        return drained;
+    }
+
+    public boolean isEmpty() {
+        return producerSequence.get() == consumerSequence;
+    }
+
+    public int size() {
+        return (int) (producerSequence.get() - consumerSequence);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,13 @@
+package com.coherentsolutions.spring.school.support.config;
+
+/**
+ * Implemented by beans that react to a new snapshot of a {@link ReloadableConfig} with the same type.
+ */
+@FunctionalInterface
+public interface ConfigListener<T> {
+
+    /**
+     * Called on the reloader's thread after the new snapshot is visible to readers.
+     */
+    void configChanged(T previous, T current);
+}
@@ -0,0 +1,44 @@
+package com.coherentsolutions.spring.school.support.config;
+
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+
+/**
+ * Binds properties into records, so that configuration is resolved and converted once and then
+ * shared as an immutable value instead of being injected into every instance field by field.
+ */
+public final class ConfigSnapshots {
+
+    private ConfigSnapshots() {
+    }
+
+    /**
+     * Component {@code name} of a record bound with prefix {@code app} comes from property
+     * {@code app.name}; a component that is itself a record is bound with its name added to the prefix.
+     *
+     * @throws IllegalStateException if a property is missing or cannot be converted
+     */
+    public static <T extends Record> T bind(Class<T> type, String prefix, PropertyResolver properties) {
+        RecordComponent[] components = type.getRecordComponents();
+        Class<?>[] parameterTypes = new Class<?>[components.length];
+        Object[] arguments = new Object[components.length];
+        for (int i = 0; i < components.length; i++) {
+            RecordComponent component = components[i];
+            String key = prefix.isEmpty() ? component.getName() : prefix + "." + component.getName();
+            parameterTypes[i] = component.getType();
+            arguments[i] = component.getType().isRecord()
+                    ? bind(component.getType().asSubclass(Record.class), key, properties)
+                    : properties.getRequiredProperty(key, component.getType());
+        }
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor(parameterTypes);
+            ReflectionUtils.makeAccessible(constructor);
+            return constructor.newInstance(arguments);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + type.getSimpleName() + " from '" + prefix + "'", e);
+        }
+    }
+}
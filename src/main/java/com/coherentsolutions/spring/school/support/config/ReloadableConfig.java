@@ -0,0 +1,199 @@
+package com.coherentsolutions.spring.school.support.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySourcesPropertyResolver;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * A {@link ConfigSnapshots configuration snapshot} that follows changes to the property files it
+ * was loaded from, without a context refresh.
+ * <p>
+ * A watcher thread waits for the files to change, parses them again, binds a new snapshot from
+ * the environment with the new files in place of the old, and publishes it with a single volatile
+ * write; {@link #get()} is a volatile read and never blocks. The environment's property sources
+ * are replaced as well, and every {@link ConfigListener} bean for the snapshot type is notified.
+ * A file that cannot be parsed or bound keeps the previous snapshot in place.
+ * <p>
+ * Only locations that one of the environment's property sources was loaded from are watched, so
+ * profile-specific files can all be listed. Files inside a jar cannot be watched.
+ */
+public class ReloadableConfig<T extends Record> implements Supplier<T>, SmartLifecycle, ApplicationContextAware {
+
+    // Editors often write a file in several steps
+    private static final long SETTLE_MILLIS = 50;
+
+    private final Class<T> type;
+    private final String prefix;
+    private final ConfigurableEnvironment environment;
+    private final Map<String, Resource> resources = new LinkedHashMap<>();
+    private final List<ConfigListener<T>> listeners = new CopyOnWriteArrayList<>();
+    private volatile T current;
+    private ApplicationContext applicationContext;
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * @param locations resource locations as given to {@code @PropertySource}, placeholders included
+     */
+    public ReloadableConfig(Class<T> type, String prefix, ConfigurableEnvironment environment, String... locations) {
+        this.type = type;
+        this.prefix = prefix;
+        this.environment = environment;
+        DefaultResourceLoader resourceLoader = new DefaultResourceLoader();
+        for (String location : locations) {
+            Resource resource = resourceLoader.getResource(environment.resolveRequiredPlaceholders(location));
+            // @PropertySource names its sources after the resource description
+            if (environment.getPropertySources().contains(resource.getDescription())) {
+                resources.put(resource.getDescription(), resource);
+            }
+        }
+        this.current = ConfigSnapshots.bind(type, prefix, environment);
+    }
+
+    @Override
+    public T get() {
+        return current;
+    }
+
+    public void addListener(ConfigListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void start() {
+        ResolvableType listenerType = ResolvableType.forClassWithGenerics(ConfigListener.class, type);
+        applicationContext.<ConfigListener<T>>getBeanProvider(listenerType).forEach(listeners::add);
+
+        Map<Path, Set<Path>> filesByDirectory = new LinkedHashMap<>();
+        for (Resource resource : resources.values()) {
+            try {
+                Path file = resource.getFile().toPath().toAbsolutePath();
+                filesByDirectory.computeIfAbsent(file.getParent(), directory -> new HashSet<>()).add(file.getFileName());
+            } catch (IOException e) {
+                System.out.println("Not watching " + resource.getDescription() + ": it is not a file.");
+            }
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            for (Path directory : filesByDirectory.keySet()) {
+                // Creation too, for editors that replace the file instead of writing to it
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot watch " + filesByDirectory.keySet(), e);
+        }
+        watcher = Thread.ofPlatform().daemon().name("config-reloader").start(() -> watch(filesByDirectory));
+    }
+
+    private void watch(Map<Path, Set<Path>> filesByDirectory) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = isWatchedFileChanged(key, filesByDirectory);
+                while (changed) {
+                    Thread.sleep(SETTLE_MILLIS);
+                    WatchKey more = watchService.poll();
+                    if (more == null) {
+                        break;
+                    }
+                    isWatchedFileChanged(more, filesByDirectory);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Stopped
+        }
+    }
+
+    private static boolean isWatchedFileChanged(WatchKey key, Map<Path, Set<Path>> filesByDirectory) {
+        Set<Path> files = filesByDirectory.getOrDefault((Path) key.watchable(), Set.of());
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= event.context() instanceof Path file && files.contains(file);
+        }
+        key.reset();
+        return changed;
+    }
+
+    // Only ever runs on the watcher thread, so snapshots are published and announced in order
+    private void reload() {
+        try {
+            List<ResourcePropertySource> reloaded = new ArrayList<>();
+            MutablePropertySources candidate = new MutablePropertySources(environment.getPropertySources());
+            for (Map.Entry<String, Resource> entry : resources.entrySet()) {
+                ResourcePropertySource source = new ResourcePropertySource(entry.getKey(), entry.getValue());
+                candidate.replace(entry.getKey(), source);
+                reloaded.add(source);
+            }
+            T next = ConfigSnapshots.bind(type, prefix, new PropertySourcesPropertyResolver(candidate));
+            for (ResourcePropertySource source : reloaded) {
+                environment.getPropertySources().replace(source.getName(), source);
+            }
+            T previous = current;
+            if (next.equals(previous)) {
+                return;
+            }
+            current = next;
+            for (ConfigListener<T> listener : listeners) {
+                try {
+                    listener.configChanged(previous, next);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Reloading " + resources.keySet() + " failed, keeping the previous "
+                    + type.getSimpleName() + ": " + e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            watchService.close();
+            watcher.join();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        watcher = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return watcher != null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.coherentsolutions.spring.school.support.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of every call matched by an AspectJ pointcut expression into a
+ * {@link LatencyHistogram} per bean name. A configuration declares this bean, from a static
+ * {@code @Bean} method because it is a {@link BeanPostProcessor}, and chooses the methods, for example
+ * {@code execution(void com.example.Service.run())}.
+ * <p>
+ * Every matching bean is proxied with advice bound to the histogram of its bean name, so the name is
+ * resolved once when the bean is created and nothing is kept per instance; all instances of a
+ * prototype share one histogram. A bean that is already a Spring AOP proxy gets the advice added
+ * instead of a second proxy. Set {@code metrics.latency.report-interval-seconds} to print all
+ * percentiles periodically.
+ */
+public class LatencyAspect implements BeanPostProcessor, EnvironmentAware {
+
+    private final AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+    private final Map<String, LatencyHistogram> histogramsByName = new ConcurrentHashMap<>();
+
+    private long reportIntervalSeconds;
+
+    private ScheduledExecutorService reporter;
+
+    public LatencyAspect(String pointcutExpression) {
+        pointcut.setExpression(pointcutExpression);
+    }
+
+    // Read from the environment because placeholders in @Value are not resolved yet for BeanPostProcessors
+    @Override
+    public void setEnvironment(Environment environment) {
+        reportIntervalSeconds = environment.getProperty("metrics.latency.report-interval-seconds", Long.class, 0L);
+    }
+
+    @PostConstruct
+    public void startReporting() {
+        if (reportIntervalSeconds > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "latency-reporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleAtFixedRate(this::report, reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!AopUtils.canApply(pointcut, AopUtils.getTargetClass(bean))) {
+            return bean;
+        }
+        LatencyHistogram histogram = histogramsByName.computeIfAbsent(beanName, name -> new LatencyHistogram());
+        MethodInterceptor timing = invocation -> {
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                histogram.record(System.nanoTime() - start);
+            }
+        };
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, timing);
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            // Outermost, so the time includes the bean's other advice
+            advised.addAdvisor(0, advisor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.addAdvisor(advisor);
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    /**
+     * @return the current percentiles, by bean name
+     */
+    public Map<String, LatencySnapshot> getSnapshots() {
+        Map<String, LatencySnapshot> snapshots = new TreeMap<>();
+        histogramsByName.forEach((name, histogram) -> snapshots.put(name, histogram.snapshot()));
+        return snapshots;
+    }
+
+    public void report() {
+        getSnapshots().forEach((name, snapshot) -> System.out.println("Latency " + name + ": " + snapshot));
+    }
+
+    @PreDestroy
+    public void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+    }
+}
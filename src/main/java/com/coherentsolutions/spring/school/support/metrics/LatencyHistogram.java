@@ -0,0 +1,90 @@
+package com.coherentsolutions.spring.school.support.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram, with a relative error of at most 1/32.
+ * <p>
+ * Values below 64 ns each have their own bucket; above that every power of two is split into 32
+ * equal buckets, so the whole range up to {@link #MAX_VALUE_NANOS} fits in about 1200 counters.
+ * Recording is a single atomic increment with no allocation and no lock. To keep writers apart the
+ * counters are striped by thread and only summed up when a snapshot is taken.
+ */
+public final class LatencyHistogram {
+
+    // About 18 minutes; longer values are recorded as this
+    public static final long MAX_VALUE_NANOS = 1L << 40;
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = indexOf(MAX_VALUE_NANOS) + 1;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    public LatencyHistogram() {
+        int stripeCount = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+        stripeMask = stripeCount - 1;
+    }
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE_NANOS);
+        int stripe = (int) (Thread.currentThread().threadId() & stripeMask);
+        stripes[stripe].getAndIncrement(indexOf(value));
+    }
+
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // Midpoint of the values that share the bucket
+    static long valueOf(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) / 2;
+    }
+
+    /**
+     * Sums up the stripes. Recording may continue meanwhile; the snapshot then contains some but
+     * not necessarily all of the concurrent values.
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = stripe.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+        return new LatencySnapshot(total, percentile(counts, total, 0.50), percentile(counts, total, 0.99),
+                percentile(counts, total, 0.999), percentile(counts, total, 1.0));
+    }
+
+    private static long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return valueOf(i);
+            }
+        }
+        return MAX_VALUE_NANOS;
+    }
+}
@@ -0,0 +1,13 @@
+package com.coherentsolutions.spring.school.support.metrics;
+
+/**
+ * Point-in-time percentiles of a {@link LatencyHistogram}, in nanoseconds.
+ */
+public record LatencySnapshot(long count, long p50, long p99, long p999, long max) {
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, p50=%.1f us, p99=%.1f us, p999=%.1f us, max=%.1f us",
+                count, p50 / 1e3, p99 / 1e3, p999 / 1e3, max / 1e3);
+    }
+}
@@ -0,0 +1,270 @@
+package com.coherentsolutions.spring.school.support.pool;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Idle instances of one bean: a small cache per thread in front of a bounded shared queue.
+ * <p>
+ * A platform thread that returns what it borrowed gets the same instance back without touching
+ * shared state. Virtual threads are rarely reused, so they skip the cache and go to the shared queue.
+ * Instances that fit in neither the thread's cache nor the shared queue are destroyed. The caches of
+ * threads that have ended are emptied into the shared queue the next time a borrow finds nothing
+ * idle, and every cache is emptied when the pool is closed.
+ * <p>
+ * Every idle instance is marked by identity until it is borrowed again, so releasing an instance
+ * that is already idle fails with {@link IllegalStateException} before the instance is reset or
+ * handed out twice. Every {@code leakTrackingInterval}-th borrow on average is tracked through a
+ * weak reference; if such an instance is garbage collected before it is returned, the next borrow
+ * reports where it was borrowed.
+ */
+final class ObjectPool {
+
+    private final String beanName;
+    private final ArrayBlockingQueue<Object> shared;
+    private final Set<ThreadCache> caches = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<ThreadCache> threadCache = ThreadLocal.withInitial(() -> {
+        ThreadCache cache = new ThreadCache(Thread.currentThread());
+        caches.add(cache);
+        return cache;
+    });
+    private final int threadCacheSize;
+    private final int leakTrackingInterval;
+    private final Consumer<Object> destroyer;
+    private final Set<Identity> idleBeans = ConcurrentHashMap.newKeySet();
+
+    // Keyed by identity hash code; a borrow whose key is taken is simply not tracked
+    private final ConcurrentHashMap<Integer, Lease> leases = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder returned = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder leaked = new LongAdder();
+    private volatile boolean closed;
+
+    ObjectPool(String beanName, int maxIdle, int threadCacheSize, int leakTrackingInterval,
+               Consumer<Object> destroyer) {
+        this.beanName = beanName;
+        this.shared = new ArrayBlockingQueue<>(Math.max(maxIdle, 1));
+        this.threadCacheSize = threadCacheSize;
+        this.leakTrackingInterval = leakTrackingInterval;
+        this.destroyer = destroyer;
+    }
+
+    Object borrow(Supplier<Object> factory) {
+        reportLeaks();
+        borrowed.increment();
+        ThreadCache cache = currentCache();
+        Object bean = cache != null ? cache.poll() : null;
+        if (bean == null) {
+            bean = shared.poll();
+        }
+        if (bean == null && reclaimEndedThreadCaches()) {
+            bean = shared.poll();
+        }
+        if (bean == null) {
+            bean = factory.get();
+            created.increment();
+        } else {
+            idleBeans.remove(new Identity(bean));
+        }
+        if (leakTrackingInterval > 0 && ThreadLocalRandom.current().nextInt(leakTrackingInterval) == 0) {
+            track(bean);
+        }
+        return bean;
+    }
+
+    private ThreadCache currentCache() {
+        return Thread.currentThread().isVirtual() ? null : threadCache.get();
+    }
+
+    void release(Object bean) {
+        if (!idleBeans.add(new Identity(bean))) {
+            throw new IllegalStateException("Pooled bean '" + beanName + "' was released twice");
+        }
+        untrack(bean);
+        returned.increment();
+        if (closed) {
+            destroy(bean);
+            return;
+        }
+        if (bean instanceof Resettable resettable) {
+            try {
+                resettable.reset();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                discard(bean);
+                return;
+            }
+        }
+        ThreadCache cache = currentCache();
+        if (cache != null && cache.offer(bean)) {
+            return;
+        }
+        if (!shared.offer(bean)) {
+            discard(bean);
+        } else if (closed) {
+            // close() may have emptied the shared queue before the offer
+            destroyIdle();
+        }
+    }
+
+    // Moves what ended threads left in their caches to the shared queue
+    private boolean reclaimEndedThreadCaches() {
+        boolean reclaimed = false;
+        for (ThreadCache cache : caches) {
+            if (!cache.owner.isAlive() && caches.remove(cache)) {
+                for (Object bean; (bean = cache.poll()) != null; ) {
+                    if (shared.offer(bean)) {
+                        reclaimed = true;
+                    } else {
+                        discard(bean);
+                    }
+                }
+            }
+        }
+        return reclaimed;
+    }
+
+    private void discard(Object bean) {
+        dropped.increment();
+        destroy(bean);
+    }
+
+    private void destroy(Object bean) {
+        idleBeans.remove(new Identity(bean));
+        destroyer.accept(bean);
+    }
+
+    private void track(Object bean) {
+        int key = System.identityHashCode(bean);
+        Lease lease = new Lease(bean, collected, key);
+        if (leases.putIfAbsent(key, lease) != null) {
+            lease.clear();
+        }
+    }
+
+    private void untrack(Object bean) {
+        if (leases.isEmpty()) {
+            return;
+        }
+        int key = System.identityHashCode(bean);
+        Lease lease = leases.get(key);
+        if (lease != null && lease.get() == bean && leases.remove(key, lease)) {
+            // A cleared reference is never enqueued
+            lease.clear();
+        }
+    }
+
+    private void reportLeaks() {
+        for (Reference<?> reference; (reference = collected.poll()) != null; ) {
+            Lease lease = (Lease) reference;
+            if (leases.remove(lease.key, lease)) {
+                leaked.increment();
+                System.out.println("Leak: pooled bean '" + beanName + "' borrowed on " + lease.thread
+                        + " was never returned");
+                lease.site.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Destroys the idle instances, including those in the caches of other threads; instances
+     * returned later are destroyed on return.
+     */
+    void close() {
+        closed = true;
+        for (ThreadCache cache : caches) {
+            for (Object bean; (bean = cache.close()) != null; ) {
+                destroy(bean);
+            }
+        }
+        caches.clear();
+        destroyIdle();
+        threadCache.remove();
+    }
+
+    private void destroyIdle() {
+        for (Object bean; (bean = shared.poll()) != null; ) {
+            destroy(bean);
+        }
+    }
+
+    PoolStats stats() {
+        reportLeaks();
+        return new PoolStats(beanName, borrowed.sum(), returned.sum(), created.sum(), dropped.sum(),
+                leaked.sum(), shared.size());
+    }
+
+    // Locked by its owner on every borrow and release, so it is only contended when it is emptied
+    private final class ThreadCache {
+        final Thread owner;
+        private final ArrayDeque<Object> idle = new ArrayDeque<>();
+        private boolean closed;
+
+        ThreadCache(Thread owner) {
+            this.owner = owner;
+        }
+
+        synchronized Object poll() {
+            return idle.pollLast();
+        }
+
+        synchronized boolean offer(Object bean) {
+            if (closed || idle.size() >= threadCacheSize) {
+                return false;
+            }
+            idle.addLast(bean);
+            return true;
+        }
+
+        // Refuses further instances and hands out the idle ones one by one
+        synchronized Object close() {
+            closed = true;
+            return idle.pollFirst();
+        }
+    }
+
+    // Compares beans by identity, so instances that are equal to each other are told apart
+    private static final class Identity {
+        final Object bean;
+
+        Identity(Object bean) {
+            this.bean = bean;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Identity identity && identity.bean == bean;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(bean);
+        }
+    }
+
+    private static final class Lease extends WeakReference<Object> {
+        final int key;
+        final String thread;
+        final Throwable site;
+
+        Lease(Object bean, ReferenceQueue<Object> queue, int key) {
+            super(bean, queue);
+            this.key = key;
+            this.thread = Thread.currentThread().toString();
+            this.site = new Throwable("Borrowed here");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.coherentsolutions.spring.school.support.pool;
+
+/**
+ * Counters of one bean's pool in the {@value PooledScope#NAME} scope.
+ *
+ * @param created  instances created because no idle one was available
+ * @param dropped  returned instances destroyed because the pool was full, or their reset failed
+ * @param leaked   tracked instances that were garbage collected without being returned
+ * @param idle     instances in the shared pool, not counting the per-thread caches
+ */
+public record PoolStats(String beanName, long borrowed, long returned, long created, long dropped,
+                        long leaked, int idle) {
+
+    @Override
+    public String toString() {
+        return String.format("%s{borrowed=%d, returned=%d, created=%d, dropped=%d, leaked=%d, idle=%d, reused=%.1f%%}",
+                beanName, borrowed, returned, created, dropped, leaked, idle,
+                borrowed == 0 ? 0.0 : 100.0 * (borrowed - created) / borrowed);
+    }
+}
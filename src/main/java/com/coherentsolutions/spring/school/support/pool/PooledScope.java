@@ -0,0 +1,110 @@
+package com.coherentsolutions.spring.school.support.pool;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.Scope;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@value #NAME} scope: every {@code getBean} borrows an instance from the bean's pool, which
+ * is only created when no idle one is left, and {@link #release(String, Object)} gives it back.
+ * <p>
+ * Beans implementing {@link Resettable} are reset on return. Each platform thread keeps up to
+ * {@code pool.thread-cache-size} returned instances for itself, and up to {@code pool.max-idle}
+ * more are shared; anything returned beyond that is destroyed like a prototype would be. A sample
+ * of borrows, one in {@code pool.leak-tracking-interval} on average (0 to disable), is checked for
+ * instances that are garbage collected without being returned.
+ * <p>
+ * Only beans fetched with {@code getBean} can be returned; a pooled bean injected into another bean
+ * is borrowed for good.
+ */
+public class PooledScope implements Scope, BeanFactoryPostProcessor, EnvironmentAware, DisposableBean {
+
+    public static final String NAME = "pooled";
+
+    private final Map<String, ObjectPool> pools = new ConcurrentHashMap<>();
+    private ConfigurableListableBeanFactory beanFactory;
+    private int maxIdle;
+    private int threadCacheSize;
+    private int leakTrackingInterval;
+
+    // Read from the environment because placeholders in @Value are not resolved yet for BeanFactoryPostProcessors
+    @Override
+    public void setEnvironment(Environment environment) {
+        maxIdle = environment.getProperty("pool.max-idle", Integer.class, 64);
+        threadCacheSize = environment.getProperty("pool.thread-cache-size", Integer.class, 4);
+        leakTrackingInterval = environment.getProperty("pool.leak-tracking-interval", Integer.class, 64);
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+        beanFactory.registerScope(NAME, this);
+    }
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        return pool(name).borrow(objectFactory::getObject);
+    }
+
+    private ObjectPool pool(String name) {
+        return pools.computeIfAbsent(name, beanName -> new ObjectPool(beanName, maxIdle, threadCacheSize,
+                leakTrackingInterval, bean -> beanFactory.destroyBean(beanName, bean)));
+    }
+
+    /**
+     * Returns a borrowed bean to its pool. It must not be used afterwards, and must be returned only once.
+     */
+    public void release(String name, Object bean) {
+        ObjectPool pool = pools.get(name);
+        if (pool == null) {
+            throw new IllegalArgumentException("No bean named '" + name + "' was borrowed from the " + NAME + " scope");
+        }
+        pool.release(bean);
+    }
+
+    // Destroys the idle instances of the bean; borrowed ones are destroyed when they are returned
+    @Override
+    public Object remove(String name) {
+        ObjectPool pool = pools.remove(name);
+        if (pool != null) {
+            pool.close();
+        }
+        return null;
+    }
+
+    // Instances are destroyed through the bean factory when they leave the pool
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+    }
+
+    @Override
+    public Object resolveContextualObject(String key) {
+        return null;
+    }
+
+    @Override
+    public String getConversationId() {
+        return null;
+    }
+
+    public List<PoolStats> getStats() {
+        return pools.values().stream().map(ObjectPool::stats).toList();
+    }
+
+    @Override
+    public void destroy() {
+        for (PoolStats stats : getStats()) {
+            System.out.println("Pool stats: " + stats);
+        }
+        pools.values().forEach(ObjectPool::close);
+        pools.clear();
+    }
+}
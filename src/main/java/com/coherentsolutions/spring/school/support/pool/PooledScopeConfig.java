@@ -0,0 +1,14 @@
+package com.coherentsolutions.spring.school.support.pool;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PooledScopeConfig {
+
+    // Static, so that the scope is registered before this class is instantiated
+    @Bean
+    public static PooledScope pooledScope() {
+        return new PooledScope();
+    }
+}
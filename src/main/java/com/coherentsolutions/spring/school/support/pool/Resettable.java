@@ -0,0 +1,13 @@
+package com.coherentsolutions.spring.school.support.pool;
+
+/**
+ * Implemented by beans in the {@value PooledScope#NAME} scope that hold state from their last use.
+ */
+public interface Resettable {
+
+    /**
+     * Called when the bean is returned to its pool, before anyone else can borrow it. If it throws,
+     * the bean is destroyed instead of being pooled.
+     */
+    void reset();
+}
@@ -0,0 +1,292 @@
+package com.coherentsolutions.spring.school.support.profiling;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every phase of every bean created after it is registered, from instantiation to destruction.
+ * <p>
+ * As the first of all post-processors it sees each phase start; {@link LifecyclePhaseMarker}, the
+ * last one, marks where the annotation callbacks end and the init or destroy methods begin. Beans
+ * created while another bean is being created (its dependencies) are timed separately and their
+ * time is not charged to the outer bean. Once the context is refreshed the slowest beans are
+ * printed together with the critical path: the chain of dependencies with the largest total
+ * startup time, which no amount of parallel initialization could make shorter.
+ * <p>
+ * Destroy methods run after the last post-processor hook, so their time is measured up to the
+ * start of the next bean's destruction and, for the last bean, up to this profiler's own.
+ */
+public class BeanLifecycleProfiler implements InstantiationAwareBeanPostProcessor,
+        DestructionAwareBeanPostProcessor, PriorityOrdered, BeanFactoryAware,
+        ApplicationListener<ContextRefreshedEvent>, DisposableBean {
+
+    private static final int REPORT_SIZE = 10;
+
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+    private final ThreadLocal<Deque<Profile>> inCreation = ThreadLocal.withInitial(ArrayDeque::new);
+    private ConfigurableListableBeanFactory beanFactory;
+    // Destruction is single-threaded; this bean's destroy methods are running
+    private Profile destroying;
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        if (BeanPostProcessor.class.isAssignableFrom(beanClass)) {
+            // Other post-processors are created while they are being registered, which is not startup work
+            return null;
+        }
+        Profile profile = new Profile(beanName);
+        profile.advance(LifecyclePhase.INSTANTIATE, System.nanoTime());
+        profiles.put(beanName, profile);
+        inCreation.get().push(profile);
+        return null;
+    }
+
+    @Override
+    public boolean postProcessAfterInstantiation(Object bean, String beanName) {
+        advance(beanName, LifecyclePhase.INJECT);
+        return true;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        advance(beanName, LifecyclePhase.POST_CONSTRUCT);
+        return bean;
+    }
+
+    void beforeInitMethods(String beanName) {
+        advance(beanName, LifecyclePhase.INIT_METHOD);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Deque<Profile> stack = inCreation.get();
+        if (find(stack, beanName) == null) {
+            return bean;
+        }
+        // Frames above this bean belong to creations that failed
+        Profile profile;
+        do {
+            profile = stack.pop();
+        } while (!profile.beanName.equals(beanName));
+        long now = System.nanoTime();
+        profile.close(now);
+        Profile outer = stack.peek();
+        if (outer != null) {
+            outer.childNanos += now - profile.createdNanos;
+        }
+        return bean;
+    }
+
+    private void advance(String beanName, LifecyclePhase phase) {
+        Profile profile = find(inCreation.get(), beanName);
+        if (profile != null) {
+            profile.advance(phase, System.nanoTime());
+        }
+    }
+
+    // Beans handed to initializeBean from outside the normal creation path have no frame
+    private static Profile find(Deque<Profile> stack, String beanName) {
+        for (Profile profile : stack) {
+            if (profile.beanName.equals(beanName)) {
+                return profile;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void postProcessBeforeDestruction(Object bean, String beanName) {
+        long now = System.nanoTime();
+        if (destroying != null) {
+            destroying.close(now);
+        }
+        destroying = profiles.get(beanName);
+        if (destroying != null) {
+            destroying.advance(LifecyclePhase.PRE_DESTROY, now);
+        }
+    }
+
+    void beforeDestroyMethods(String beanName) {
+        if (destroying != null && destroying.beanName.equals(beanName)) {
+            destroying.advance(LifecyclePhase.DESTROY_METHOD, System.nanoTime());
+        }
+    }
+
+    @Override
+    public boolean requiresDestruction(Object bean) {
+        return true;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        // Ignore refreshes of child contexts
+        if (event.getApplicationContext().getAutowireCapableBeanFactory() == beanFactory) {
+            printStartupReport();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (destroying != null) {
+            destroying.close(System.nanoTime());
+            destroying = null;
+        }
+        List<BeanTiming> slowest = getTimings().stream()
+                .filter(timing -> timing.shutdownNanos() > 0)
+                .sorted(Comparator.comparingLong(BeanTiming::shutdownNanos).reversed())
+                .limit(REPORT_SIZE)
+                .toList();
+        System.out.println("Bean shutdown profile, slowest first:");
+        for (BeanTiming timing : slowest) {
+            System.out.printf("  %s: %.2f ms%n", timing.beanName(), timing.shutdownNanos() / 1e6);
+        }
+    }
+
+    public void printStartupReport() {
+        List<BeanTiming> timings = getTimings();
+        long total = timings.stream().mapToLong(BeanTiming::startupNanos).sum();
+        System.out.printf("Bean startup profile: %d beans, %.2f ms in bean creation, slowest first:%n",
+                timings.size(), total / 1e6);
+        int rank = 0;
+        for (BeanTiming timing : timings.subList(0, Math.min(REPORT_SIZE, timings.size()))) {
+            System.out.printf("  %d. %.2f ms %s%n", ++rank, timing.startupNanos() / 1e6, timing);
+        }
+        List<String> criticalPath = getCriticalPath();
+        long pathNanos = criticalPath.stream().mapToLong(name -> profiles.get(name).startupNanos()).sum();
+        System.out.printf("Critical path (%.2f ms): %s%n", pathNanos / 1e6, String.join(" -> ", criticalPath));
+    }
+
+    /**
+     * @return the timings of all profiled beans, by startup time, slowest first
+     */
+    public List<BeanTiming> getTimings() {
+        return profiles.values().stream()
+                .map(Profile::toTiming)
+                .sorted(Comparator.comparingLong(BeanTiming::startupNanos).reversed())
+                .toList();
+    }
+
+    /**
+     * @return the dependency chain with the largest total startup time, starting with the bean that
+     * depends on the others
+     */
+    public List<String> getCriticalPath() {
+        Map<String, Long> pathNanos = new HashMap<>();
+        Map<String, String> nextOnPath = new HashMap<>();
+        String start = null;
+        for (String beanName : profiles.keySet()) {
+            long nanos = pathNanos(beanName, pathNanos, nextOnPath, new HashSet<>());
+            if (start == null || nanos > pathNanos.get(start)) {
+                start = beanName;
+            }
+        }
+        List<String> path = new ArrayList<>();
+        for (String beanName = start; beanName != null; beanName = nextOnPath.get(beanName)) {
+            path.add(beanName);
+        }
+        return path;
+    }
+
+    private long pathNanos(String beanName, Map<String, Long> pathNanos, Map<String, String> nextOnPath,
+                           Set<String> visiting) {
+        Long known = pathNanos.get(beanName);
+        if (known != null) {
+            return known;
+        }
+        if (!visiting.add(beanName)) {
+            // Circular reference; the cycle adds nothing on top of what is already counted
+            return 0;
+        }
+        long longestDependency = 0;
+        for (String dependency : beanFactory.getDependenciesForBean(beanName)) {
+            if (profiles.containsKey(dependency)) {
+                long nanos = pathNanos(dependency, pathNanos, nextOnPath, visiting);
+                if (!nextOnPath.containsKey(beanName) || nanos > longestDependency) {
+                    longestDependency = nanos;
+                    nextOnPath.put(beanName, dependency);
+                }
+            }
+        }
+        visiting.remove(beanName);
+        long total = profiles.get(beanName).startupNanos() + longestDependency;
+        pathNanos.put(beanName, total);
+        return total;
+    }
+
+    private static final class Profile {
+        final String beanName;
+        final long[] nanos = new long[LifecyclePhase.values().length];
+        long createdNanos;
+        LifecyclePhase phase;
+        long phaseStartNanos;
+        // Time the current phase spent creating other beans
+        long childNanos;
+
+        Profile(String beanName) {
+            this.beanName = beanName;
+        }
+
+        void advance(LifecyclePhase next, long now) {
+            if (phase == null && next == LifecyclePhase.INSTANTIATE) {
+                createdNanos = now;
+            }
+            close(now);
+            phase = next;
+            phaseStartNanos = now;
+        }
+
+        void close(long now) {
+            if (phase != null) {
+                nanos[phase.ordinal()] += now - phaseStartNanos - childNanos;
+                childNanos = 0;
+                phase = null;
+            }
+        }
+
+        long startupNanos() {
+            return nanos[LifecyclePhase.INSTANTIATE.ordinal()] + nanos[LifecyclePhase.INJECT.ordinal()]
+                    + nanos[LifecyclePhase.POST_CONSTRUCT.ordinal()] + nanos[LifecyclePhase.INIT_METHOD.ordinal()];
+        }
+
+        BeanTiming toTiming() {
+            Map<LifecyclePhase, Long> phaseNanos = new EnumMap<>(LifecyclePhase.class);
+            for (LifecyclePhase each : LifecyclePhase.values()) {
+                if (nanos[each.ordinal()] != 0) {
+                    phaseNanos.put(each, nanos[each.ordinal()]);
+                }
+            }
+            return new BeanTiming(beanName, phaseNanos);
+        }
+    }
+}
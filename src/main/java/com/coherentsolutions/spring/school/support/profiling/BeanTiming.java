@@ -0,0 +1,40 @@
+package com.coherentsolutions.spring.school.support.profiling;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Time spent in each lifecycle phase of one bean, in nanoseconds. Time spent creating the beans it
+ * depends on is not included.
+ */
+public record BeanTiming(String beanName, Map<LifecyclePhase, Long> phaseNanos) {
+
+    public BeanTiming {
+        phaseNanos = Map.copyOf(phaseNanos);
+    }
+
+    public long nanos(LifecyclePhase phase) {
+        return phaseNanos.getOrDefault(phase, 0L);
+    }
+
+    public long startupNanos() {
+        return nanos(LifecyclePhase.INSTANTIATE) + nanos(LifecyclePhase.INJECT)
+                + nanos(LifecyclePhase.POST_CONSTRUCT) + nanos(LifecyclePhase.INIT_METHOD);
+    }
+
+    public long shutdownNanos() {
+        return nanos(LifecyclePhase.PRE_DESTROY) + nanos(LifecyclePhase.DESTROY_METHOD);
+    }
+
+    @Override
+    public String toString() {
+        Map<LifecyclePhase, Long> ordered = new EnumMap<>(phaseNanos);
+        StringBuilder text = new StringBuilder(beanName).append('{');
+        ordered.forEach((phase, nanos) -> text.append(phase.name().toLowerCase())
+                .append(String.format("=%.2f ms, ", nanos / 1e6)));
+        if (!ordered.isEmpty()) {
+            text.setLength(text.length() - 2);
+        }
+        return text.append('}').toString();
+    }
+}
@@ -0,0 +1,16 @@
+package com.coherentsolutions.spring.school.support.profiling;
+
+public enum LifecyclePhase {
+    // Constructor or factory method, including constructor injection
+    INSTANTIATE,
+    // Field and setter injection plus the Aware callbacks
+    INJECT,
+    // @PostConstruct and other BeanPostProcessors running before initialization
+    POST_CONSTRUCT,
+    // InitializingBean.afterPropertiesSet and the custom init method
+    INIT_METHOD,
+    // @PreDestroy and other destruction-aware BeanPostProcessors
+    PRE_DESTROY,
+    // DisposableBean.destroy and the custom destroy method
+    DESTROY_METHOD
+}
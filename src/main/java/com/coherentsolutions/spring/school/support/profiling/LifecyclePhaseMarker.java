@@ -0,0 +1,48 @@
+package com.coherentsolutions.spring.school.support.profiling;
+
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.Ordered;
+
+/**
+ * Runs after every other post-processor, where the annotation callbacks are done and the init or
+ * destroy methods are about to start, and tells the {@link BeanLifecycleProfiler}.
+ * <p>
+ * Spring moves every {@link MergedBeanDefinitionPostProcessor}, the one that calls
+ * {@code @PostConstruct} and {@code @PreDestroy} included, behind all other post-processors. Being
+ * one as well, and ordered rather than priority ordered, puts this marker behind that one too.
+ */
+class LifecyclePhaseMarker implements MergedBeanDefinitionPostProcessor, DestructionAwareBeanPostProcessor, Ordered {
+
+    private final BeanLifecycleProfiler profiler;
+
+    LifecyclePhaseMarker(BeanLifecycleProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        profiler.beforeInitMethods(beanName);
+        return bean;
+    }
+
+    @Override
+    public void postProcessBeforeDestruction(Object bean, String beanName) {
+        profiler.beforeDestroyMethods(beanName);
+    }
+
+    @Override
+    public boolean requiresDestruction(Object bean) {
+        return true;
+    }
+}
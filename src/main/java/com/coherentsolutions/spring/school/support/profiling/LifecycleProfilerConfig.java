@@ -0,0 +1,19 @@
+package com.coherentsolutions.spring.school.support.profiling;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LifecycleProfilerConfig {
+
+    // Static, so that registering the post-processors does not instantiate this class first
+    @Bean
+    public static BeanLifecycleProfiler beanLifecycleProfiler() {
+        return new BeanLifecycleProfiler();
+    }
+
+    @Bean
+    static LifecyclePhaseMarker lifecyclePhaseMarker(BeanLifecycleProfiler beanLifecycleProfiler) {
+        return new LifecyclePhaseMarker(beanLifecycleProfiler);
+    }
+}
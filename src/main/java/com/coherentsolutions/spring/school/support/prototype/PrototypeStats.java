@@ -0,0 +1,20 @@
+package com.coherentsolutions.spring.school.support.prototype;
+
+/**
+ * Instance counts of one prototype bean definition.
+ *
+ * @param destroyed instances destroyed through the bean factory or when the context closed
+ * @param reclaimed instances garbage collected without having been destroyed
+ */
+public record PrototypeStats(String beanName, long created, long destroyed, long reclaimed) {
+
+    public long live() {
+        return created - destroyed - reclaimed;
+    }
+
+    @Override
+    public String toString() {
+        return beanName + "{created=" + created + ", destroyed=" + destroyed + ", reclaimed=" + reclaimed
+                + ", live=" + live() + "}";
+    }
+}
@@ -0,0 +1,203 @@
+package com.coherentsolutions.spring.school.support.prototype;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.core.Ordered;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of prototype beans, which the container forgets as soon as it has created them.
+ * <p>
+ * Every prototype is held through a weak reference, so tracking never keeps one alive. Instances
+ * destroyed with {@code destroyBean} are forgotten; those still reachable when the context closes
+ * get their destroy callbacks then; those garbage collected first are counted as reclaimed, a sign
+ * that somebody should have destroyed them. A collected bean can no longer be called, so its
+ * {@code @PreDestroy} cannot run; the {@link Reclaimable#reclaimAction()} of {@link Reclaimable}
+ * beans runs instead.
+ * <p>
+ * Leftover prototypes are destroyed on {@link ContextClosedEvent}, before any singleton is, so the
+ * singletons they use are still there. Like {@code LifecyclePhaseMarker}, the tracker is a
+ * {@link MergedBeanDefinitionPostProcessor} so that it sorts behind the one calling {@code @PreDestroy}.
+ */
+public class PrototypeTracker implements MergedBeanDefinitionPostProcessor, DestructionAwareBeanPostProcessor,
+        Ordered, BeanFactoryAware, ApplicationListener<ContextClosedEvent> {
+
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    // Keyed by identity hash code, which distinct live instances may share
+    private final Map<Integer, List<TrackedPrototype>> tracked = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private ConfigurableListableBeanFactory beanFactory;
+    private Thread reclaimer;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!beanFactory.containsBeanDefinition(beanName) || !beanFactory.getMergedBeanDefinition(beanName).isPrototype()) {
+            return bean;
+        }
+        Runnable reclaimAction = bean instanceof Reclaimable reclaimable ? reclaimable.reclaimAction() : null;
+        TrackedPrototype prototype = new TrackedPrototype(bean, beanName, reclaimAction, collected);
+        tracked.compute(prototype.key, (key, bucket) -> {
+            List<TrackedPrototype> updated = bucket == null ? new ArrayList<>(1) : new ArrayList<>(bucket);
+            updated.add(prototype);
+            return updated;
+        });
+        counters(beanName).created.increment();
+        startReclaimer();
+        return bean;
+    }
+
+    private synchronized void startReclaimer() {
+        if (reclaimer == null) {
+            reclaimer = Thread.ofPlatform().daemon().name("prototype-reclaimer").start(this::reclaim);
+        }
+    }
+
+    private void reclaim() {
+        while (true) {
+            TrackedPrototype prototype;
+            try {
+                prototype = (TrackedPrototype) collected.remove();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (untrack(prototype)) {
+                counters(prototype.beanName).reclaimed.increment();
+                prototype.runReclaimAction();
+            }
+        }
+    }
+
+    @Override
+    public void postProcessBeforeDestruction(Object bean, String beanName) {
+        TrackedPrototype prototype = find(bean);
+        if (prototype != null && untrack(prototype)) {
+            counters(prototype.beanName).destroyed.increment();
+            // @PreDestroy has run; DisposableBean.destroy() and the destroy method run after this
+            prototype.runReclaimAction();
+        }
+    }
+
+    // Spring only calls postProcessBeforeDestruction for beans this returns true for
+    @Override
+    public boolean requiresDestruction(Object bean) {
+        return find(bean) != null;
+    }
+
+    private TrackedPrototype find(Object bean) {
+        List<TrackedPrototype> bucket = tracked.get(System.identityHashCode(bean));
+        if (bucket != null) {
+            for (TrackedPrototype prototype : bucket) {
+                if (prototype.get() == bean) {
+                    return prototype;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Only one of destruction and reclamation wins
+    private boolean untrack(TrackedPrototype prototype) {
+        boolean[] removed = new boolean[1];
+        tracked.computeIfPresent(prototype.key, (key, bucket) -> {
+            List<TrackedPrototype> updated = new ArrayList<>(bucket);
+            removed[0] = updated.remove(prototype);
+            return updated.isEmpty() ? null : updated;
+        });
+        if (removed[0]) {
+            prototype.clear();
+        }
+        return removed[0];
+    }
+
+    private Counters counters(String beanName) {
+        return counters.computeIfAbsent(beanName, name -> new Counters());
+    }
+
+    public List<PrototypeStats> getStats() {
+        return counters.entrySet().stream()
+                .map(entry -> new PrototypeStats(entry.getKey(), entry.getValue().created.sum(),
+                        entry.getValue().destroyed.sum(), entry.getValue().reclaimed.sum()))
+                .toList();
+    }
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        // A child context's events reach this one too
+        if (event.getApplicationContext().getAutowireCapableBeanFactory() != beanFactory) {
+            return;
+        }
+        List<TrackedPrototype> remaining = new ArrayList<>();
+        tracked.values().forEach(remaining::addAll);
+        for (TrackedPrototype prototype : remaining) {
+            Object bean = prototype.get();
+            if (bean != null) {
+                // Comes back through postProcessBeforeDestruction
+                beanFactory.destroyBean(prototype.beanName, bean);
+            }
+        }
+        synchronized (this) {
+            if (reclaimer != null) {
+                reclaimer.interrupt();
+            }
+        }
+        for (PrototypeStats stats : getStats()) {
+            System.out.println("Prototype stats: " + stats);
+        }
+    }
+
+    private static final class Counters {
+        final LongAdder created = new LongAdder();
+        final LongAdder destroyed = new LongAdder();
+        final LongAdder reclaimed = new LongAdder();
+    }
+
+    private static final class TrackedPrototype extends WeakReference<Object> {
+        final int key;
+        final String beanName;
+        final Runnable reclaimAction;
+
+        TrackedPrototype(Object bean, String beanName, Runnable reclaimAction, ReferenceQueue<Object> queue) {
+            super(bean, queue);
+            this.key = System.identityHashCode(bean);
+            this.beanName = beanName;
+            this.reclaimAction = reclaimAction;
+        }
+
+        void runReclaimAction() {
+            if (reclaimAction != null) {
+                try {
+                    reclaimAction.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
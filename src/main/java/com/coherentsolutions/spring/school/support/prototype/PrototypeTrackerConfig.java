@@ -0,0 +1,14 @@
+package com.coherentsolutions.spring.school.support.prototype;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PrototypeTrackerConfig {
+
+    // Static, so that registering the post-processor does not instantiate this class first
+    @Bean
+    public static PrototypeTracker prototypeTracker() {
+        return new PrototypeTracker();
+    }
+}
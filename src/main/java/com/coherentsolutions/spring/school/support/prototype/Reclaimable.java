@@ -0,0 +1,15 @@
+package com.coherentsolutions.spring.school.support.prototype;
+
+/**
+ * Implemented by prototype beans whose resources must be released even if nobody destroys them.
+ */
+public interface Reclaimable {
+
+    /**
+     * Called once, right after the bean is initialized. The action runs exactly once: when the bean
+     * is destroyed, after its {@code @PreDestroy} methods but before {@code DisposableBean.destroy()}
+     * and a custom destroy method, or when the bean is garbage collected without having been
+     * destroyed. It must not refer to the bean, or the bean can never be collected.
+     */
+    Runnable reclaimAction();
+}
@@ -0,0 +1,19 @@
+package com.coherentsolutions.spring.school.support.scope;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CustomScopesConfig {
+
+    // Static, so that the scopes are registered before this class is instantiated
+    @Bean
+    public static ThreadScope threadScope() {
+        return new ThreadScope();
+    }
+
+    @Bean
+    public static ScopedValueScope scopedValueScope() {
+        return new ScopedValueScope();
+    }
+}
@@ -0,0 +1,51 @@
+package com.coherentsolutions.spring.school.support.scope;
+
+import org.springframework.beans.factory.ObjectFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The beans of one thread or extent, with their destruction callbacks. Not thread-safe.
+ */
+final class ScopedBeans {
+
+    private final Map<String, Object> beans = new HashMap<>();
+    private final Map<String, Runnable> destructionCallbacks = new LinkedHashMap<>();
+
+    Object get(String name, ObjectFactory<?> objectFactory) {
+        Object bean = beans.get(name);
+        if (bean == null) {
+            bean = objectFactory.getObject();
+            beans.put(name, bean);
+        }
+        return bean;
+    }
+
+    // The caller runs the callback, if any, as the Scope contract asks
+    Object remove(String name) {
+        destructionCallbacks.remove(name);
+        return beans.remove(name);
+    }
+
+    void registerDestructionCallback(String name, Runnable callback) {
+        destructionCallbacks.put(name, callback);
+    }
+
+    // Reverse creation order, so that a bean is destroyed before the beans it was created from
+    void destroy() {
+        List<Runnable> callbacks = new ArrayList<>(destructionCallbacks.values());
+        destructionCallbacks.clear();
+        beans.clear();
+        for (int i = callbacks.size() - 1; i >= 0; i--) {
+            try {
+                callbacks.get(i).run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.coherentsolutions.spring.school.support.scope;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.Scope;
+
+import java.util.concurrent.Callable;
+
+/**
+ * The {@value #NAME} scope: one instance per bean and extent, where an extent is a call to
+ * {@link #run(Runnable)} or {@link #call(Callable)}. The beans are destroyed when the call returns,
+ * and a nested call gets beans of its own until it returns.
+ * <p>
+ * These are the semantics of {@code ScopedValue.where(...).run(...)}: the binding cannot outlive
+ * the call, so nothing stays behind on a pooled thread and a virtual thread costs nothing once its
+ * task is done. {@code ScopedValue} is still a preview API in Java 21, so the binding is kept in a
+ * {@link ThreadLocal} that is only ever set and restored around the call; switching to
+ * {@code ScopedValue} changes nothing for callers.
+ */
+public class ScopedValueScope implements Scope, BeanFactoryPostProcessor {
+
+    public static final String NAME = "scoped-value";
+
+    private final ThreadLocal<ScopedBeans> current = new ThreadLocal<>();
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        beanFactory.registerScope(NAME, this);
+    }
+
+    /**
+     * Runs the task in a new extent.
+     */
+    public void run(Runnable task) {
+        ScopedBeans previous = current.get();
+        ScopedBeans beans = new ScopedBeans();
+        current.set(beans);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+            beans.destroy();
+        }
+    }
+
+    /**
+     * Calls the task in a new extent.
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        ScopedBeans previous = current.get();
+        ScopedBeans beans = new ScopedBeans();
+        current.set(beans);
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+            beans.destroy();
+        }
+    }
+
+    private void restore(ScopedBeans previous) {
+        if (previous != null) {
+            current.set(previous);
+        } else {
+            current.remove();
+        }
+    }
+
+    public boolean isBound() {
+        return current.get() != null;
+    }
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        return bound().get(name, objectFactory);
+    }
+
+    private ScopedBeans bound() {
+        ScopedBeans beans = current.get();
+        if (beans == null) {
+            throw new IllegalStateException("No " + NAME + " scope is bound to this thread; "
+                    + "look the bean up inside ScopedValueScope.run or call");
+        }
+        return beans;
+    }
+
+    @Override
+    public Object remove(String name) {
+        ScopedBeans beans = current.get();
+        return beans != null ? beans.remove(name) : null;
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+        bound().registerDestructionCallback(name, callback);
+    }
+
+    @Override
+    public Object resolveContextualObject(String key) {
+        return null;
+    }
+
+    @Override
+    public String getConversationId() {
+        return null;
+    }
+}
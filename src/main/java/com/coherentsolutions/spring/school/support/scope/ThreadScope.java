@@ -0,0 +1,125 @@
+package com.coherentsolutions.spring.school.support.scope;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.Scope;
+
+import java.lang.ref.Cleaner;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@value #NAME} scope: one instance per bean and thread.
+ * <p>
+ * Unlike Spring's {@code SimpleThreadScope} it runs destruction callbacks: when the thread has ended
+ * and been garbage collected, when {@link #endThread()} is called on it, or at the latest when the
+ * context is closed. Threads of a pool never end, so tasks running on them should call
+ * {@link #endThread()} when they are done, or their beans are handed to the next task.
+ */
+public class ThreadScope implements Scope, BeanFactoryPostProcessor, DisposableBean {
+
+    public static final String NAME = "thread";
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final ThreadLocal<ThreadBeans> threadBeans = new ThreadLocal<>();
+    private final Set<ThreadBeans> live = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        beanFactory.registerScope(NAME, this);
+    }
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        ThreadBeans beans = threadBeans.get();
+        if (beans == null) {
+            beans = new ThreadBeans();
+            ThreadBeans registered = beans;
+            // Must not capture the thread, or it could never be collected
+            beans.cleanable = CLEANER.register(Thread.currentThread(), () -> {
+                live.remove(registered);
+                registered.destroy();
+            });
+            threadBeans.set(beans);
+            live.add(beans);
+        }
+        return beans.get(name, objectFactory);
+    }
+
+    /**
+     * Destroys the current thread's beans; the next lookup on this thread creates new ones.
+     */
+    public void endThread() {
+        ThreadBeans beans = threadBeans.get();
+        if (beans != null) {
+            threadBeans.remove();
+            // Runs the registered action at most once, whether or not the thread is collected later
+            beans.cleanable.clean();
+        }
+    }
+
+    @Override
+    public Object remove(String name) {
+        ThreadBeans beans = threadBeans.get();
+        return beans != null ? beans.remove(name) : null;
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+        ThreadBeans beans = threadBeans.get();
+        if (beans != null) {
+            beans.registerDestructionCallback(name, callback);
+        }
+    }
+
+    @Override
+    public Object resolveContextualObject(String key) {
+        return null;
+    }
+
+    @Override
+    public String getConversationId() {
+        return Thread.currentThread().getName();
+    }
+
+    /**
+     * @return how many threads currently hold beans of this scope
+     */
+    public int getLiveThreadCount() {
+        return live.size();
+    }
+
+    // Threads that are still running lose their beans now
+    @Override
+    public void destroy() {
+        for (ThreadBeans beans : List.copyOf(live)) {
+            beans.cleanable.clean();
+        }
+    }
+
+    // Locked so that the cleaner or the closing context never destroys beans that are being created
+    private static final class ThreadBeans {
+        private final ScopedBeans beans = new ScopedBeans();
+        private Cleaner.Cleanable cleanable;
+
+        synchronized Object get(String name, ObjectFactory<?> objectFactory) {
+            return beans.get(name, objectFactory);
+        }
+
+        synchronized Object remove(String name) {
+            return beans.remove(name);
+        }
+
+        synchronized void registerDestructionCallback(String name, Runnable callback) {
+            beans.registerDestructionCallback(name, callback);
+        }
+
+        synchronized void destroy() {
+            beans.destroy();
+        }
+    }
+}
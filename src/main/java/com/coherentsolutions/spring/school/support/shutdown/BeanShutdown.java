@@ -0,0 +1,16 @@
+package com.coherentsolutions.spring.school.support.shutdown;
+
+/**
+ * How one {@link GracefulShutdown} bean went through the shutdown phases.
+ *
+ * @param abandoned operations still in flight when the drain timeout expired
+ * @param failure   what went wrong while draining or closing, or {@code null}
+ */
+public record BeanShutdown(String beanName, long drainMillis, long abandoned, long closeMillis, String failure) {
+
+    @Override
+    public String toString() {
+        return String.format("%s: drained in %d ms (%d abandoned), closed in %d ms%s",
+                beanName, drainMillis, abandoned, closeMillis, failure != null ? ", failed: " + failure : "");
+    }
+}
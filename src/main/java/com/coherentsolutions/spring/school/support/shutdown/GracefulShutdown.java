@@ -0,0 +1,26 @@
+package com.coherentsolutions.spring.school.support.shutdown;
+
+/**
+ * A bean that the {@link ShutdownCoordinator} stops in phases: every participant first stops
+ * accepting work, then all of them drain at the same time, then they are closed.
+ */
+public interface GracefulShutdown {
+
+    /**
+     * Rejects new work from now on. Must return quickly.
+     */
+    void stopAccepting();
+
+    /**
+     * Waits for the work already accepted to finish.
+     *
+     * @return how many operations were still in flight when the timeout expired; they are abandoned
+     */
+    long awaitDrained(long timeoutMillis) throws InterruptedException;
+
+    /**
+     * Releases the bean's resources. Spring still calls the bean's destroy method afterwards, which
+     * must then do nothing.
+     */
+    void close() throws Exception;
+}
@@ -0,0 +1,64 @@
+package com.coherentsolutions.spring.school.support.shutdown;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts operations in progress and lets a shutdown wait for them after new ones have been refused.
+ * <pre>
+ * if (!tracker.tryEnter()) { reject }
+ * try { work } finally { tracker.exit(); }
+ * </pre>
+ */
+public final class InFlightTracker {
+
+    private final AtomicLong inFlight = new AtomicLong();
+    private volatile boolean accepting = true;
+
+    /**
+     * @return {@code false} once {@link #stopAccepting()} was called; the caller must not proceed
+     */
+    public boolean tryEnter() {
+        inFlight.incrementAndGet();
+        // Checked after counting, so awaitDrained either sees this operation or it sees the flag
+        if (!accepting) {
+            exit();
+            return false;
+        }
+        return true;
+    }
+
+    public void exit() {
+        if (inFlight.decrementAndGet() == 0 && !accepting) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    public void stopAccepting() {
+        accepting = false;
+    }
+
+    public boolean isAccepting() {
+        return accepting;
+    }
+
+    public long getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the operations still in flight when the timeout expired
+     */
+    public long awaitDrained(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (this) {
+            long remaining;
+            while (inFlight.get() > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return inFlight.get();
+    }
+}
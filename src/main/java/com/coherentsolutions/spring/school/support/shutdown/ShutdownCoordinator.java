@@ -0,0 +1,202 @@
+package com.coherentsolutions.spring.school.support.shutdown;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shuts down every {@link GracefulShutdown} bean in three phases when the context is closed,
+ * before Spring starts calling destroy methods one bean at a time:
+ * <ol>
+ *     <li>every bean stops accepting work, so nothing new reaches a bean that is draining;</li>
+ *     <li>all beans drain at the same time, each for at most {@code shutdown.drain-timeout-ms};</li>
+ *     <li>beans are closed in parallel, except that a bean is only closed after the beans that
+ *     depend on it, at most {@code shutdown.close-timeout-ms} each.</li>
+ * </ol>
+ * The whole shutdown therefore takes about as long as the slowest bean rather than the sum of all.
+ */
+public class ShutdownCoordinator implements SmartLifecycle, ApplicationContextAware {
+
+    @Value("${shutdown.drain-timeout-ms:10000}")
+    private long drainTimeoutMillis;
+
+    @Value("${shutdown.close-timeout-ms:10000}")
+    private long closeTimeoutMillis;
+
+    private ConfigurableListableBeanFactory beanFactory;
+    private volatile boolean running;
+    private volatile List<BeanShutdown> lastReport = List.of();
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.beanFactory = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stopped before any other lifecycle bean
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        long start = System.nanoTime();
+        Map<String, GracefulShutdown> participants = beanFactory.getBeansOfType(GracefulShutdown.class, false, false);
+        if (participants.isEmpty()) {
+            return;
+        }
+        participants.values().forEach(GracefulShutdown::stopAccepting);
+
+        Map<String, long[]> drained = new LinkedHashMap<>();
+        Map<String, String> failures = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Map<String, Future<long[]>> drains = new LinkedHashMap<>();
+            participants.forEach((name, bean) -> drains.put(name, executor.submit(() -> {
+                long drainStart = System.nanoTime();
+                long abandoned = bean.awaitDrained(drainTimeoutMillis);
+                return new long[]{(System.nanoTime() - drainStart) / 1_000_000, abandoned};
+            })));
+            drains.forEach((name, drain) -> {
+                try {
+                    drained.put(name, await(drain, drainTimeoutMillis));
+                } catch (Exception e) {
+                    drained.put(name, new long[]{drainTimeoutMillis, -1});
+                    failures.put(name, describe(e));
+                }
+            });
+
+            Map<String, Long> closeMillis = new LinkedHashMap<>();
+            for (List<String> wave : closeWaves(participants.keySet())) {
+                Map<String, Future<Long>> closes = new LinkedHashMap<>();
+                for (String name : wave) {
+                    GracefulShutdown bean = participants.get(name);
+                    closes.put(name, executor.submit(() -> {
+                        long closeStart = System.nanoTime();
+                        bean.close();
+                        return (System.nanoTime() - closeStart) / 1_000_000;
+                    }));
+                }
+                closes.forEach((name, close) -> {
+                    try {
+                        closeMillis.put(name, await(close, closeTimeoutMillis));
+                    } catch (Exception e) {
+                        closeMillis.put(name, closeTimeoutMillis);
+                        failures.merge(name, describe(e), (drainFailure, closeFailure) -> drainFailure + "; " + closeFailure);
+                    }
+                });
+            }
+
+            List<BeanShutdown> report = new ArrayList<>();
+            for (String name : participants.keySet()) {
+                long[] drain = drained.get(name);
+                report.add(new BeanShutdown(name, drain[0], drain[1], closeMillis.get(name), failures.get(name)));
+            }
+            lastReport = List.copyOf(report);
+        } finally {
+            // Closes that timed out keep running on their own; nothing waits for them
+            executor.shutdownNow();
+        }
+        System.out.println("Shutdown of " + participants.size() + " beans took "
+                + (System.nanoTime() - start) / 1_000_000 + " ms:");
+        lastReport.forEach(bean -> System.out.println("  " + bean));
+    }
+
+    private static <T> T await(Future<T> future, long timeoutMillis) throws Exception {
+        try {
+            // A little longer than the bean's own timeout, which it is expected to honor itself
+            return future.get(timeoutMillis + 1_000, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new TimeoutException("did not finish within " + timeoutMillis + " ms");
+        }
+    }
+
+    private static String describe(Exception e) {
+        return e.getClass().getSimpleName() + (e.getMessage() != null ? ": " + e.getMessage() : "");
+    }
+
+    /**
+     * Groups the beans so that each group only contains beans none of the remaining beans depend on.
+     */
+    private List<List<String>> closeWaves(Set<String> names) {
+        Map<String, Set<String>> dependents = new LinkedHashMap<>();
+        for (String name : names) {
+            dependents.put(name, dependentParticipants(name, names));
+        }
+        List<List<String>> waves = new ArrayList<>();
+        Set<String> remaining = new HashSet<>(names);
+        while (!remaining.isEmpty()) {
+            List<String> wave = new ArrayList<>();
+            for (String name : names) {
+                if (remaining.contains(name) && dependents.get(name).stream().noneMatch(remaining::contains)) {
+                    wave.add(name);
+                }
+            }
+            if (wave.isEmpty()) {
+                // Circular dependencies; nothing left to order by
+                wave.addAll(remaining);
+            }
+            wave.forEach(remaining::remove);
+            waves.add(wave);
+        }
+        return waves;
+    }
+
+    // Participants that depend on the bean directly or through beans that are not participants
+    private Set<String> dependentParticipants(String name, Set<String> participants) {
+        Set<String> found = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(List.of(beanFactory.getDependentBeans(name)));
+        while (!pending.isEmpty()) {
+            String dependent = pending.pop();
+            if (!visited.add(dependent) || dependent.equals(name)) {
+                continue;
+            }
+            if (participants.contains(dependent)) {
+                found.add(dependent);
+            }
+            pending.addAll(List.of(beanFactory.getDependentBeans(dependent)));
+        }
+        return found;
+    }
+
+    /**
+     * @return how each bean went through the last shutdown
+     */
+    public List<BeanShutdown> getLastReport() {
+        return lastReport;
+    }
+}
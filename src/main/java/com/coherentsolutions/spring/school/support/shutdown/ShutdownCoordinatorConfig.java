@@ -0,0 +1,13 @@
+package com.coherentsolutions.spring.school.support.shutdown;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ShutdownCoordinatorConfig {
+
+    @Bean
+    public ShutdownCoordinator shutdownCoordinator() {
+        return new ShutdownCoordinator();
+    }
+}
@@ -0,0 +1,28 @@
+package com.coherentsolutions.spring.school.support.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class EmbeddedWebConfig {
+
+    // Static, so that the scopes are registered before this class is instantiated
+    @Bean
+    public static WebScopes webScopes() {
+        return new WebScopes();
+    }
+
+    @Bean
+    public SessionStore sessionStore(@Value("${session.shards:16}") int shards,
+                                     @Value("${session.ttl-seconds:1800}") long ttlSeconds,
+                                     @Value("${session.memory-budget-bytes:67108864}") long memoryBudgetBytes,
+                                     @Value("${session.passivation-dir:}") String passivationDirectory) throws IOException {
+        return new ShardedSessionStore(shards, Duration.ofSeconds(ttlSeconds), memoryBudgetBytes,
+                passivationDirectory.isEmpty() ? null : Path.of(passivationDirectory));
+    }
+}
@@ -0,0 +1,117 @@
+package com.coherentsolutions.spring.school.support.web;
+
+import org.springframework.web.context.request.AbstractRequestAttributes;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The request and session attributes of one HTTP exchange, which is what Spring's request and
+ * session scopes store their beans in. The session is only looked up or created when a session
+ * attribute is used.
+ */
+public class ExchangeRequestAttributes extends AbstractRequestAttributes {
+
+    private final Map<String, Object> requestAttributes = new HashMap<>();
+    private final String requestedSessionId;
+    private final SessionStore sessions;
+    private final Consumer<WebSession> sessionCreated;
+    private WebSession session;
+
+    /**
+     * @param requestedSessionId the id from the client's session cookie, or {@code null}
+     * @param sessionCreated     told about a new session, for instance to set the cookie
+     */
+    public ExchangeRequestAttributes(String requestedSessionId, SessionStore sessions, Consumer<WebSession> sessionCreated) {
+        this.requestedSessionId = requestedSessionId;
+        this.sessions = sessions;
+        this.sessionCreated = sessionCreated;
+    }
+
+    private WebSession session(boolean create) {
+        if (session == null && requestedSessionId != null) {
+            session = sessions.find(requestedSessionId);
+        }
+        if (session == null && create) {
+            session = sessions.create();
+            sessionCreated.accept(session);
+        }
+        return session;
+    }
+
+    @Override
+    public Object getAttribute(String name, int scope) {
+        if (scope == SCOPE_REQUEST) {
+            return requestAttributes.get(name);
+        }
+        WebSession current = session(false);
+        return current != null ? current.getAttribute(name) : null;
+    }
+
+    @Override
+    public void setAttribute(String name, Object value, int scope) {
+        if (scope == SCOPE_REQUEST) {
+            requestAttributes.put(name, value);
+        } else {
+            session(true).setAttribute(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name, int scope) {
+        if (scope == SCOPE_REQUEST) {
+            requestAttributes.remove(name);
+            removeRequestDestructionCallback(name);
+        } else {
+            WebSession current = session(false);
+            if (current != null) {
+                current.removeAttribute(name);
+            }
+        }
+    }
+
+    @Override
+    public String[] getAttributeNames(int scope) {
+        if (scope == SCOPE_REQUEST) {
+            return requestAttributes.keySet().toArray(String[]::new);
+        }
+        WebSession current = session(false);
+        return current != null ? current.getAttributeNames() : new String[0];
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback, int scope) {
+        if (scope == SCOPE_REQUEST) {
+            registerRequestDestructionCallback(name, callback);
+        } else {
+            session(true).registerDestructionCallback(name, callback);
+        }
+    }
+
+    @Override
+    public Object resolveReference(String key) {
+        if (REFERENCE_SESSION.equals(key)) {
+            return session(true);
+        }
+        return null;
+    }
+
+    @Override
+    public String getSessionId() {
+        return session(true).getId();
+    }
+
+    @Override
+    public Object getSessionMutex() {
+        return session(true);
+    }
+
+    // Session attributes are stored as they are set; there is no copy to write back, only the session to release
+    @Override
+    protected void updateAccessedSessionAttributes() {
+        if (session != null) {
+            sessions.release(session);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.coherentsolutions.spring.school.support.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP server on the JDK's {@code com.sun.net.httpserver}, running every request on its
+ * own virtual thread with Spring's request and session scopes bound to it, so that request- and
+ * session-scoped beans, and scoped proxies of them, resolve inside the handlers.
+ * <p>
+ * The session cookie is set when a handler first uses a session-scoped bean, so that has to
+ * happen before the handler sends the response headers.
+ * <p>
+ * The server writes headers and body separately, so with Nagle's algorithm on, a keep-alive
+ * client's delayed ACK holds up every response by about 40 ms. Run with
+ * {@code -Dsun.net.httpserver.nodelay=true} to disable it. The JDK reads that property once, when the
+ * first server is created, so a main method that sets it must do so before creating any server.
+ */
+public class ScopedHttpServer implements SmartLifecycle {
+
+    public static final String SESSION_COOKIE = "SESSION";
+
+    private final int port;
+    private final SessionStore sessions;
+    private final Map<String, HttpHandler> handlers = new LinkedHashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param port 0 picks a free port; see {@link #getPort()}
+     */
+    public ScopedHttpServer(int port, SessionStore sessions) {
+        this.port = port;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Must be called before the server starts.
+     */
+    public ScopedHttpServer addHandler(String path, HttpHandler handler) {
+        handlers.put(path, handler);
+        return this;
+    }
+
+    @Override
+    public void start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on port " + port, e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        handlers.forEach((path, handler) -> server.createContext(path, scoped(handler)));
+        server.start();
+        System.out.println("HTTP server listening on port " + getPort() + ".");
+    }
+
+    private HttpHandler scoped(HttpHandler handler) {
+        return exchange -> {
+            ExchangeRequestAttributes attributes = new ExchangeRequestAttributes(
+                    requestedSessionId(exchange), sessions,
+                    session -> exchange.getResponseHeaders().add("Set-Cookie",
+                            SESSION_COOKIE + "=" + session.getId() + "; Path=/; HttpOnly"));
+            RequestContextHolder.setRequestAttributes(attributes);
+            try {
+                handler.handle(exchange);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                // Only possible if the handler has not sent anything yet
+                if (exchange.getResponseCode() == -1) {
+                    exchange.sendResponseHeaders(500, -1);
+                }
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+                // Destroys the request-scoped beans
+                attributes.requestCompleted();
+                exchange.close();
+            }
+        };
+    }
+
+    private static String requestedSessionId(HttpExchange exchange) {
+        List<String> cookieHeaders = exchange.getRequestHeaders().get("Cookie");
+        if (cookieHeaders == null) {
+            return null;
+        }
+        for (String header : cookieHeaders) {
+            for (String cookie : header.split(";")) {
+                String trimmed = cookie.trim();
+                if (trimmed.startsWith(SESSION_COOKIE + "=")) {
+                    return trimmed.substring(SESSION_COOKIE.length() + 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void stop() {
+        // Gives running exchanges a second to finish
+        server.stop(1);
+        executor.close();
+        sessions.close();
+        server = null;
+        System.out.println("HTTP server stopped.");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+}
@@ -0,0 +1,28 @@
+package com.coherentsolutions.spring.school.support.web;
+
+/**
+ * Where {@link ScopedHttpServer} keeps its sessions.
+ */
+public interface SessionStore {
+
+    /**
+     * @return the live session with that id, or {@code null}; until it is {@link #release released}
+     * the store keeps it in memory
+     */
+    WebSession find(String id);
+
+    /**
+     * @return a new session, counted as in use like one returned by {@link #find(String)}
+     */
+    WebSession create();
+
+    /**
+     * Called once the request that found or created the session has completed.
+     */
+    void release(WebSession session);
+
+    /**
+     * Invalidates every session.
+     */
+    void close();
+}
@@ -0,0 +1,16 @@
+package com.coherentsolutions.spring.school.support.web;
+
+/**
+ * Counters of a {@link ShardedSessionStore}.
+ *
+ * @param residentBytes estimated heap taken by the resident sessions
+ */
+public record SessionStoreStats(int resident, int passivated, long residentBytes, long created,
+                                long passivations, long activations, long expired) {
+
+    @Override
+    public String toString() {
+        return String.format("resident=%d (~%d KiB), passivated=%d, created=%d, passivations=%d, activations=%d, expired=%d",
+                resident, residentBytes / 1024, passivated, created, passivations, activations, expired);
+    }
+}
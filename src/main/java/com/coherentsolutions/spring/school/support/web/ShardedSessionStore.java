@@ -0,0 +1,401 @@
+package com.coherentsolutions.spring.school.support.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Session store for many more sessions than fit on the heap.
+ * <p>
+ * Sessions are spread over shards by id, each with its own lock, so requests for different
+ * sessions rarely wait for each other. When the estimated size of the resident sessions exceeds
+ * the memory budget, the least recently used sessions that no request is using are serialized to
+ * a file each and dropped from the heap; the next request for one reads it back. A session's size
+ * is known once it has been written; until then it is taken to be the average so far. Sessions
+ * idle for longer than the TTL are invalidated by a background sweep.
+ * <p>
+ * Session attributes and destruction callbacks must be serializable to be passivated; sessions
+ * holding anything else stay on the heap. Passivated sessions that expire, or that are still on
+ * disk when the store is closed, are read back to run their destruction callbacks, so
+ * {@code @PreDestroy} methods of session-scoped beans run no matter where the session was.
+ * <p>
+ * Files are read and written while the shard is locked; the locks are not monitors, so virtual
+ * threads waiting for them do not pin their carriers.
+ */
+public final class ShardedSessionStore implements SessionStore {
+
+    private static final long INITIAL_SESSION_BYTES = 1024;
+
+    private final Shard[] shards;
+    private final long ttlNanos;
+    private final long memoryBudgetBytes;
+    private final Path directory;
+    private final boolean ownsDirectory;
+    private final ScheduledExecutorService sweeper;
+
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final AtomicInteger nextVictimShard = new AtomicInteger();
+    private final LongAdder measuredBytes = new LongAdder();
+    private final LongAdder measuredSessions = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder passivations = new LongAdder();
+    private final LongAdder activations = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * @param directory where passivated sessions are written, or {@code null} for a temporary
+     *                  directory that is deleted when the store is closed
+     */
+    public ShardedSessionStore(int shardCount, Duration ttl, long memoryBudgetBytes, Path directory) throws IOException {
+        this.shards = new Shard[Integer.highestOneBit(Math.max(shardCount, 1) * 2 - 1)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.ownsDirectory = directory == null;
+        this.directory = ownsDirectory ? Files.createTempDirectory("sessions-") : Files.createDirectories(directory);
+        // Files left by an earlier run belong to sessions nobody can find any more
+        deleteSessionFiles();
+
+        long sweepMillis = Math.max(1_000, ttl.toMillis() / 4);
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::evictExpired, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private Shard shardOf(String id) {
+        int hash = id.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    @Override
+    public WebSession find(String id) {
+        Shard shard = shardOf(id);
+        WebSession found = null;
+        WebSession expiredSession = null;
+        shard.lock.lock();
+        try {
+            Entry entry = shard.resident.get(id);
+            if (entry != null) {
+                if (isExpired(entry.session.getLastAccessedNanos()) && entry.inUse == 0) {
+                    shard.resident.remove(id);
+                    residentBytes.addAndGet(-entry.bytes);
+                    expiredSession = entry.session;
+                } else {
+                    entry.inUse++;
+                    entry.session.touch();
+                    found = entry.session;
+                }
+            } else {
+                Long lastAccessedNanos = shard.passivated.remove(id);
+                if (lastAccessedNanos != null) {
+                    if (isExpired(lastAccessedNanos)) {
+                        expiredSession = readBack(id);
+                        if (expiredSession == null) {
+                            expired.increment();
+                        }
+                    } else {
+                        found = activate(shard, id);
+                    }
+                }
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        if (expiredSession != null) {
+            expired.increment();
+            expiredSession.invalidate();
+        }
+        if (found != null) {
+            enforceBudget();
+        }
+        return found;
+    }
+
+    private WebSession activate(Shard shard, String id) {
+        long bytes;
+        try {
+            bytes = Files.size(fileOf(id));
+        } catch (IOException e) {
+            e.printStackTrace();
+            bytes = averageSessionBytes();
+        }
+        WebSession session = readBack(id);
+        if (session == null) {
+            // Treated as a session that no longer exists
+            return null;
+        }
+        Entry entry = new Entry(session, bytes);
+        entry.inUse = 1;
+        shard.resident.put(id, entry);
+        residentBytes.addAndGet(bytes);
+        activations.increment();
+        return session;
+    }
+
+    @Override
+    public WebSession create() {
+        WebSession session = new WebSession(UUID.randomUUID().toString());
+        Entry entry = new Entry(session, averageSessionBytes());
+        entry.inUse = 1;
+        Shard shard = shardOf(session.getId());
+        shard.lock.lock();
+        try {
+            shard.resident.put(session.getId(), entry);
+        } finally {
+            shard.lock.unlock();
+        }
+        residentBytes.addAndGet(entry.bytes);
+        created.increment();
+        enforceBudget();
+        return session;
+    }
+
+    private long averageSessionBytes() {
+        long sessions = measuredSessions.sum();
+        return sessions == 0 ? INITIAL_SESSION_BYTES : measuredBytes.sum() / sessions;
+    }
+
+    @Override
+    public void release(WebSession session) {
+        Shard shard = shardOf(session.getId());
+        shard.lock.lock();
+        try {
+            Entry entry = shard.resident.get(session.getId());
+            if (entry != null && entry.session == session && entry.inUse > 0) {
+                entry.inUse--;
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // Takes the victims from the shards in turn, so that no single shard is emptied first
+    private void enforceBudget() {
+        int shardsWithoutVictim = 0;
+        while (residentBytes.get() > memoryBudgetBytes && shardsWithoutVictim < shards.length) {
+            Shard shard = shards[nextVictimShard.getAndIncrement() & (shards.length - 1)];
+            shardsWithoutVictim = passivateEldest(shard) ? 0 : shardsWithoutVictim + 1;
+        }
+    }
+
+    private boolean passivateEldest(Shard shard) {
+        shard.lock.lock();
+        try {
+            // Access order, so the least recently used session comes first
+            for (Iterator<Entry> entries = shard.resident.values().iterator(); entries.hasNext(); ) {
+                Entry entry = entries.next();
+                if (entry.inUse > 0 || entry.unserializable) {
+                    continue;
+                }
+                byte[] bytes;
+                try {
+                    bytes = serialize(entry.session);
+                    Files.write(fileOf(entry.session.getId()), bytes);
+                } catch (IOException e) {
+                    // Usually an attribute that is not serializable; keep the session on the heap
+                    entry.unserializable = true;
+                    continue;
+                }
+                entries.remove();
+                shard.passivated.put(entry.session.getId(), entry.session.getLastAccessedNanos());
+                residentBytes.addAndGet(-entry.bytes);
+                measuredBytes.add(bytes.length);
+                measuredSessions.increment();
+                passivations.increment();
+                return true;
+            }
+            return false;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // Reads a passivated session and deletes its file; null if it cannot be read
+    private WebSession readBack(String id) {
+        Path file = fileOf(id);
+        try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(file))) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> attributes = (Map<String, Object>) in.readObject();
+            @SuppressWarnings("unchecked")
+            Map<String, Runnable> destructionCallbacks = (Map<String, Runnable>) in.readObject();
+            return new WebSession(id, attributes, destructionCallbacks);
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    private static byte[] serialize(WebSession session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(session.copyAttributes());
+            out.writeObject(session.copyDestructionCallbacks());
+        }
+        return bytes.toByteArray();
+    }
+
+    private boolean isExpired(long lastAccessedNanos) {
+        return System.nanoTime() - lastAccessedNanos > ttlNanos;
+    }
+
+    /**
+     * Invalidates the sessions that have been idle for longer than the TTL; also runs periodically.
+     */
+    public void evictExpired() {
+        for (Shard shard : shards) {
+            List<WebSession> expiredSessions = new ArrayList<>();
+            shard.lock.lock();
+            try {
+                for (Iterator<Entry> entries = shard.resident.values().iterator(); entries.hasNext(); ) {
+                    Entry entry = entries.next();
+                    if (!isExpired(entry.session.getLastAccessedNanos())) {
+                        // Everything after this one was used more recently
+                        break;
+                    }
+                    if (entry.inUse == 0) {
+                        entries.remove();
+                        residentBytes.addAndGet(-entry.bytes);
+                        expiredSessions.add(entry.session);
+                    }
+                }
+                for (Iterator<Map.Entry<String, Long>> entries = shard.passivated.entrySet().iterator(); entries.hasNext(); ) {
+                    Map.Entry<String, Long> entry = entries.next();
+                    if (isExpired(entry.getValue())) {
+                        entries.remove();
+                        WebSession session = readBack(entry.getKey());
+                        if (session != null) {
+                            expiredSessions.add(session);
+                        } else {
+                            expired.increment();
+                        }
+                    }
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+            // Destruction callbacks run outside the lock
+            for (WebSession session : expiredSessions) {
+                expired.increment();
+                session.invalidate();
+            }
+        }
+    }
+
+    public SessionStoreStats getStats() {
+        int resident = 0;
+        int passivated = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                resident += shard.resident.size();
+                passivated += shard.passivated.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return new SessionStoreStats(resident, passivated, residentBytes.get(), created.sum(),
+                passivations.sum(), activations.sum(), expired.sum());
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        sweeper.shutdownNow();
+        System.out.println("Session store stats: " + getStats());
+        List<WebSession> sessions = new ArrayList<>();
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.resident.values().forEach(entry -> sessions.add(entry.session));
+                shard.resident.clear();
+                for (String id : shard.passivated.keySet()) {
+                    WebSession session = readBack(id);
+                    if (session != null) {
+                        sessions.add(session);
+                    }
+                }
+                shard.passivated.clear();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        residentBytes.set(0);
+        sessions.forEach(WebSession::invalidate);
+        // Only files that could not be read back are left
+        deleteSessionFiles();
+        if (ownsDirectory) {
+            deleteQuietly(directory);
+        }
+    }
+
+    private Path fileOf(String id) {
+        return directory.resolve(id + ".session");
+    }
+
+    private void deleteSessionFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".session")).forEach(ShardedSessionStore::deleteQuietly);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<String, Entry> resident = new LinkedHashMap<>(16, 0.75f, true);
+        // Last access time of each session on disk, so that lookups of unknown ids never touch the disk
+        final Map<String, Long> passivated = new HashMap<>();
+    }
+
+    private static final class Entry {
+        final WebSession session;
+        final long bytes;
+        // Requests that found the session and have not completed yet; only guarded by the shard lock
+        int inUse;
+        boolean unserializable;
+
+        Entry(WebSession session, long bytes) {
+            this.session = session;
+            this.bytes = bytes;
+        }
+    }
+}
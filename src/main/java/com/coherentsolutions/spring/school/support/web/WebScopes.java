@@ -0,0 +1,20 @@
+package com.coherentsolutions.spring.school.support.web;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.RequestScope;
+import org.springframework.web.context.request.SessionScope;
+
+/**
+ * Registers Spring's request and session scopes in a context that is not a web application
+ * context; {@link ScopedHttpServer} binds them for each request.
+ */
+public class WebScopes implements BeanFactoryPostProcessor {
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        beanFactory.registerScope(WebApplicationContext.SCOPE_REQUEST, new RequestScope());
+        beanFactory.registerScope(WebApplicationContext.SCOPE_SESSION, new SessionScope());
+    }
+}
@@ -0,0 +1,104 @@
+package com.coherentsolutions.spring.school.support.web;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Attributes kept across the requests of one client, found again through the session cookie.
+ */
+public class WebSession {
+
+    private final String id;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final Map<String, Runnable> destructionCallbacks = new LinkedHashMap<>();
+    private volatile long lastAccessedNanos = System.nanoTime();
+    private volatile boolean invalidated;
+
+    public WebSession(String id) {
+        this.id = id;
+    }
+
+    // Restores a session that was written to disk
+    WebSession(String id, Map<String, Object> attributes, Map<String, Runnable> destructionCallbacks) {
+        this.id = id;
+        this.attributes.putAll(attributes);
+        this.destructionCallbacks.putAll(destructionCallbacks);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+        synchronized (destructionCallbacks) {
+            destructionCallbacks.remove(name);
+        }
+    }
+
+    public String[] getAttributeNames() {
+        return attributes.keySet().toArray(String[]::new);
+    }
+
+    public void registerDestructionCallback(String name, Runnable callback) {
+        synchronized (destructionCallbacks) {
+            destructionCallbacks.put(name, callback);
+        }
+    }
+
+    Map<String, Object> copyAttributes() {
+        return new LinkedHashMap<>(attributes);
+    }
+
+    Map<String, Runnable> copyDestructionCallbacks() {
+        synchronized (destructionCallbacks) {
+            return new LinkedHashMap<>(destructionCallbacks);
+        }
+    }
+
+    public void touch() {
+        lastAccessedNanos = System.nanoTime();
+    }
+
+    public long getLastAccessedNanos() {
+        return lastAccessedNanos;
+    }
+
+    public boolean isInvalidated() {
+        return invalidated;
+    }
+
+    /**
+     * Runs the destruction callbacks of the session's beans, newest first. Only the first call has an effect.
+     */
+    public void invalidate() {
+        List<Runnable> callbacks;
+        synchronized (destructionCallbacks) {
+            if (invalidated) {
+                return;
+            }
+            invalidated = true;
+            callbacks = new ArrayList<>(destructionCallbacks.values());
+            destructionCallbacks.clear();
+        }
+        attributes.clear();
+        for (int i = callbacks.size() - 1; i >= 0; i--) {
+            try {
+                callbacks.get(i).run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
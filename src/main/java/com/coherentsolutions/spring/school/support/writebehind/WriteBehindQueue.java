@@ -0,0 +1,183 @@
+package com.coherentsolutions.spring.school.support.writebehind;
+
+import com.coherentsolutions.spring.school.support.shutdown.InFlightTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded buffer in front of a batch write.
+ * <p>
+ * Producers {@link #submit(Object)} single records and get a future back. A background flusher
+ * thread groups records into batches of at most {@code maxBatchSize}, waiting no longer than
+ * {@code maxDelayMillis} after the first record of a batch arrived, and hands each batch to the
+ * {@link BatchWriter}. When the buffer is full, producers block: that is the backpressure.
+ * {@link #close()} stops accepting records and flushes everything already buffered.
+ */
+public class WriteBehindQueue<T> implements AutoCloseable {
+
+    private final String name;
+    private final BlockingQueue<Entry<T>> buffer;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BatchWriter<T> writer;
+    private final Thread flusher;
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder recordCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    // Submits between the closed check and the enqueue, so close() can wait for them
+    private final InFlightTracker submits = new InFlightTracker();
+    private volatile boolean closed;
+
+    public WriteBehindQueue(String name, int capacity, int maxBatchSize, long maxDelayMillis,
+                            BatchWriter<T> writer) {
+        this.name = name;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.writer = writer;
+        this.flusher = new Thread(this::flushLoop, name + "-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    public void start() {
+        flusher.start();
+    }
+
+    /**
+     * Buffers {@code record}, blocking while the buffer is full.
+     *
+     * @return a future completed once the batch containing the record has been written
+     */
+    public CompletableFuture<Void> submit(T record) throws InterruptedException {
+        if (!submits.tryEnter()) {
+            throw new IllegalStateException(name + " is closed");
+        }
+        try {
+            Entry<T> entry = new Entry<>(record);
+            buffer.put(entry);
+            return entry.done;
+        } finally {
+            submits.exit();
+        }
+    }
+
+    private void flushLoop() {
+        List<Entry<T>> batch = new ArrayList<>(maxBatchSize);
+        while (!closed || !buffer.isEmpty()) {
+            try {
+                Entry<T> first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    // Take whatever is already there without waiting, then wait out the time window
+                    if (buffer.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || closed) {
+                        break;
+                    }
+                    Entry<T> next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // close() never interrupts, so treat this as a request to stop after draining
+                closed = true;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Entry<T>> batch) {
+        List<T> records = new ArrayList<>(batch.size());
+        for (Entry<T> entry : batch) {
+            records.add(entry.record);
+        }
+        try {
+            writer.write(records);
+            batchCount.increment();
+            recordCount.add(records.size());
+            for (Entry<T> entry : batch) {
+                entry.done.complete(null);
+            }
+        } catch (Exception e) {
+            failedCount.add(records.size());
+            for (Entry<T> entry : batch) {
+                entry.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting records and waits until every buffered record has been written. If the
+     * calling thread is interrupted it returns early with its interrupt flag set, and the flusher
+     * goes on writing what is buffered in the background.
+     */
+    @Override
+    public void close() {
+        submits.stopAccepting();
+        try {
+            // Producers blocked on a full buffer get in while the flusher is still draining it
+            while (submits.awaitDrained(1_000) > 0) {
+                System.out.println(name + " is waiting for " + submits.getInFlight() + " submits to finish");
+            }
+            closed = true;
+            flusher.join();
+        } catch (InterruptedException e) {
+            closed = true;
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    public long getRecordCount() {
+        return recordCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    @Override
+    public String toString() {
+        return name + "{batches=" + getBatchCount() + ", records=" + getRecordCount()
+                + ", failed=" + getFailedCount() + ", pending=" + getPendingCount() + "}";
+    }
+
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+        void write(List<T> batch) throws Exception;
+    }
+
+    private static final class Entry<T> {
+        final T record;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Entry(T record) {
+            this.record = record;
+        }
+    }
+}
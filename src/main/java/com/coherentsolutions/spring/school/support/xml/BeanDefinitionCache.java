@@ -0,0 +1,364 @@
+package com.coherentsolutions.spring.school.support.xml;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores bean definitions in a compact binary file, so that they can be registered again
+ * without parsing the XML they came from.
+ * <p>
+ * The file starts with a hash of whatever the definitions were read from; {@link #read} ignores a
+ * file whose hash differs. Only what XML definitions usually hold can be stored: class names,
+ * the common flags, and property and constructor values made of strings, typed strings, bean
+ * references, booleans, integers, string arrays and lists or sets of those. Anything else, such
+ * as inner beans, maps, qualifiers or method overrides, makes {@link #write} fail.
+ */
+public final class BeanDefinitionCache {
+
+    private static final int MAGIC = 0x42444546;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte TYPED_STRING = 2;
+    private static final byte BEAN_REFERENCE = 3;
+    private static final byte BEAN_NAME_REFERENCE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte INTEGER = 6;
+    private static final byte STRING_ARRAY = 7;
+    private static final byte LIST = 8;
+    private static final byte SET = 9;
+
+    private BeanDefinitionCache() {
+    }
+
+    /**
+     * Writes all definitions of the registry and their aliases; the file is replaced in one step.
+     *
+     * @throws IllegalArgumentException if a definition holds something that cannot be stored,
+     *                                  in which case the file is left as it was
+     */
+    public static void write(Path file, byte[] hash, BeanDefinitionRegistry registry) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeShort(hash.length);
+                out.write(hash);
+                String[] names = registry.getBeanDefinitionNames();
+                out.writeInt(names.length);
+                for (String name : names) {
+                    out.writeUTF(name);
+                    writeStrings(out, registry.getAliases(name));
+                    writeDefinition(out, name, registry.getBeanDefinition(name));
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Registers the definitions stored in the file if it was written for the same hash. Nothing
+     * is registered unless the whole file could be read.
+     *
+     * @return whether the definitions were registered
+     */
+    public static boolean read(Path file, byte[] hash, BeanDefinitionRegistry registry) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return false;
+            }
+            byte[] stored = new byte[in.readUnsignedShort()];
+            in.readFully(stored);
+            if (!Arrays.equals(stored, hash)) {
+                return false;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                entries.add(new Entry(in.readUTF(), readStrings(in), readDefinition(in)));
+            }
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        for (Entry entry : entries) {
+            registry.registerBeanDefinition(entry.name, entry.definition);
+            for (String alias : entry.aliases) {
+                registry.registerAlias(entry.name, alias);
+            }
+        }
+        return true;
+    }
+
+    private record Entry(String name, String[] aliases, AbstractBeanDefinition definition) {
+    }
+
+    private static void writeDefinition(DataOutputStream out, String name, BeanDefinition beanDefinition) throws IOException {
+        if (beanDefinition.getClass() != GenericBeanDefinition.class && beanDefinition.getClass() != RootBeanDefinition.class) {
+            throw new IllegalArgumentException("'" + name + "' is a " + beanDefinition.getClass().getSimpleName());
+        }
+        AbstractBeanDefinition definition = (AbstractBeanDefinition) beanDefinition;
+        if (definition.attributeNames().length > 0 || !definition.getQualifiers().isEmpty()
+                || definition.hasMethodOverrides() || definition.getInstanceSupplier() != null
+                || (definition instanceof RootBeanDefinition root && root.getDecoratedDefinition() != null)) {
+            throw new IllegalArgumentException("'" + name + "' has metadata, qualifiers, method overrides or a supplier");
+        }
+        writeString(out, definition.getBeanClassName());
+        writeString(out, definition.getParentName());
+        writeString(out, definition.getScope());
+        writeString(out, definition.getFactoryBeanName());
+        writeString(out, definition.getFactoryMethodName());
+        writeStrings(out, definition.getDependsOn());
+        writeStrings(out, definition.getInitMethodNames());
+        writeStrings(out, definition.getDestroyMethodNames());
+        writeString(out, definition.getDescription());
+        writeString(out, definition.getResourceDescription());
+        Boolean lazyInit = definition.getLazyInit();
+        out.writeByte(lazyInit == null ? -1 : lazyInit ? 1 : 0);
+        out.writeByte(definition.getAutowireMode());
+        out.writeByte(definition.getDependencyCheck());
+        out.writeByte(definition.getRole());
+        out.writeByte((definition.isAbstract() ? 1 : 0)
+                | (definition.isAutowireCandidate() ? 1 << 1 : 0)
+                | (definition.isPrimary() ? 1 << 2 : 0)
+                | (definition.isSynthetic() ? 1 << 3 : 0)
+                | (definition.isEnforceInitMethod() ? 1 << 4 : 0)
+                | (definition.isEnforceDestroyMethod() ? 1 << 5 : 0)
+                | (definition.isNonPublicAccessAllowed() ? 1 << 6 : 0)
+                | (definition.isLenientConstructorResolution() ? 1 << 7 : 0));
+
+        ConstructorArgumentValues arguments = definition.getConstructorArgumentValues();
+        Map<Integer, ConstructorArgumentValues.ValueHolder> indexed = arguments.getIndexedArgumentValues();
+        out.writeShort(indexed.size());
+        for (Map.Entry<Integer, ConstructorArgumentValues.ValueHolder> entry : indexed.entrySet()) {
+            out.writeShort(entry.getKey());
+            writeArgument(out, name, entry.getValue());
+        }
+        List<ConstructorArgumentValues.ValueHolder> generic = arguments.getGenericArgumentValues();
+        out.writeShort(generic.size());
+        for (ConstructorArgumentValues.ValueHolder holder : generic) {
+            writeArgument(out, name, holder);
+        }
+
+        PropertyValue[] properties = definition.getPropertyValues().getPropertyValues();
+        out.writeShort(properties.length);
+        for (PropertyValue property : properties) {
+            out.writeUTF(property.getName());
+            writeValue(out, name, property.getValue());
+        }
+    }
+
+    private static AbstractBeanDefinition readDefinition(DataInputStream in) throws IOException {
+        GenericBeanDefinition definition = new GenericBeanDefinition();
+        definition.setBeanClassName(readString(in));
+        definition.setParentName(readString(in));
+        definition.setScope(readString(in));
+        definition.setFactoryBeanName(readString(in));
+        definition.setFactoryMethodName(readString(in));
+        definition.setDependsOn(readStrings(in));
+        definition.setInitMethodNames(readStrings(in));
+        definition.setDestroyMethodNames(readStrings(in));
+        definition.setDescription(readString(in));
+        definition.setResourceDescription(readString(in));
+        byte lazyInit = in.readByte();
+        if (lazyInit >= 0) {
+            definition.setLazyInit(lazyInit == 1);
+        }
+        definition.setAutowireMode(in.readByte());
+        definition.setDependencyCheck(in.readByte());
+        definition.setRole(in.readByte());
+        int flags = in.readUnsignedByte();
+        definition.setAbstract((flags & 1) != 0);
+        definition.setAutowireCandidate((flags & 1 << 1) != 0);
+        definition.setPrimary((flags & 1 << 2) != 0);
+        definition.setSynthetic((flags & 1 << 3) != 0);
+        definition.setEnforceInitMethod((flags & 1 << 4) != 0);
+        definition.setEnforceDestroyMethod((flags & 1 << 5) != 0);
+        definition.setNonPublicAccessAllowed((flags & 1 << 6) != 0);
+        definition.setLenientConstructorResolution((flags & 1 << 7) != 0);
+
+        ConstructorArgumentValues arguments = new ConstructorArgumentValues();
+        for (int i = in.readUnsignedShort(); i > 0; i--) {
+            arguments.addIndexedArgumentValue(in.readUnsignedShort(), readArgument(in));
+        }
+        for (int i = in.readUnsignedShort(); i > 0; i--) {
+            arguments.addGenericArgumentValue(readArgument(in));
+        }
+        definition.setConstructorArgumentValues(arguments);
+
+        MutablePropertyValues properties = new MutablePropertyValues();
+        for (int i = in.readUnsignedShort(); i > 0; i--) {
+            properties.addPropertyValue(in.readUTF(), readValue(in));
+        }
+        definition.setPropertyValues(properties);
+        return definition;
+    }
+
+    private static void writeArgument(DataOutputStream out, String name, ConstructorArgumentValues.ValueHolder holder)
+            throws IOException {
+        writeValue(out, name, holder.getValue());
+        writeString(out, holder.getType());
+        writeString(out, holder.getName());
+    }
+
+    private static ConstructorArgumentValues.ValueHolder readArgument(DataInputStream in) throws IOException {
+        return new ConstructorArgumentValues.ValueHolder(readValue(in), readString(in), readString(in));
+    }
+
+    private static void writeValue(DataOutputStream out, String name, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(NULL);
+            case String string -> {
+                out.writeByte(STRING);
+                out.writeUTF(string);
+            }
+            case TypedStringValue typed when !typed.isDynamic() -> {
+                out.writeByte(TYPED_STRING);
+                writeString(out, typed.getValue());
+                writeString(out, typed.hasTargetType() ? typed.getTargetType().getName() : typed.getTargetTypeName());
+            }
+            case RuntimeBeanReference reference when reference.getBeanType() == null -> {
+                out.writeByte(BEAN_REFERENCE);
+                out.writeUTF(reference.getBeanName());
+                out.writeBoolean(reference.isToParent());
+            }
+            case RuntimeBeanNameReference reference -> {
+                out.writeByte(BEAN_NAME_REFERENCE);
+                out.writeUTF(reference.getBeanName());
+            }
+            case Boolean bool -> {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(bool);
+            }
+            case Integer integer -> {
+                out.writeByte(INTEGER);
+                out.writeInt(integer);
+            }
+            case String[] strings -> {
+                out.writeByte(STRING_ARRAY);
+                writeStrings(out, strings);
+            }
+            case ManagedList<?> list -> {
+                out.writeByte(LIST);
+                writeElements(out, name, list, list.getElementTypeName(), list.isMergeEnabled());
+            }
+            case ManagedSet<?> set -> {
+                out.writeByte(SET);
+                writeElements(out, name, set, set.getElementTypeName(), set.isMergeEnabled());
+            }
+            default -> throw new IllegalArgumentException("'" + name + "' has a value of type "
+                    + value.getClass().getName());
+        }
+    }
+
+    private static void writeElements(DataOutputStream out, String name, Collection<?> elements,
+                                      String elementTypeName, boolean mergeEnabled) throws IOException {
+        writeString(out, elementTypeName);
+        out.writeBoolean(mergeEnabled);
+        out.writeInt(elements.size());
+        for (Object element : elements) {
+            writeValue(out, name, element);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> in.readUTF();
+            case TYPED_STRING -> {
+                String value = readString(in);
+                String targetTypeName = readString(in);
+                yield targetTypeName == null ? new TypedStringValue(value) : new TypedStringValue(value, targetTypeName);
+            }
+            case BEAN_REFERENCE -> new RuntimeBeanReference(in.readUTF(), in.readBoolean());
+            case BEAN_NAME_REFERENCE -> new RuntimeBeanNameReference(in.readUTF());
+            case BOOLEAN -> in.readBoolean();
+            case INTEGER -> in.readInt();
+            case STRING_ARRAY -> readStrings(in);
+            case LIST -> {
+                ManagedList<Object> list = new ManagedList<>();
+                list.setElementTypeName(readString(in));
+                list.setMergeEnabled(in.readBoolean());
+                for (int i = in.readInt(); i > 0; i--) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            case SET -> {
+                ManagedSet<Object> set = new ManagedSet<>();
+                set.setElementTypeName(readString(in));
+                set.setMergeEnabled(in.readBoolean());
+                for (int i = in.readInt(); i > 0; i--) {
+                    set.add(readValue(in));
+                }
+                yield set;
+            }
+            default -> throw new IOException("Unknown value tag " + tag);
+        };
+    }
+
+    // Null is written as length -1, so it does not come back as an empty array
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings == null ? -1 : strings.length);
+        if (strings != null) {
+            for (String string : strings) {
+                out.writeUTF(string);
+            }
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        String[] strings = new String[length];
+        for (int i = 0; i < length; i++) {
+            strings[i] = in.readUTF();
+        }
+        return strings;
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        out.writeBoolean(string != null);
+        if (string != null) {
+            out.writeUTF(string);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,102 @@
+package com.coherentsolutions.spring.school.support.xml;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.parsing.EmptyReaderEventListener;
+import org.springframework.beans.factory.parsing.ImportDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.context.support.AbstractXmlApplicationContext;
+import org.springframework.core.SpringVersion;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * An XML application context that parses its XML only when it has changed.
+ * <p>
+ * Each refresh hashes the content of the config locations together with the Spring version, whose
+ * namespace handlers decide what the XML turns into. If the cache file was written for the same
+ * hash, the definitions are read from it and the XML is neither parsed nor validated against its
+ * schemas. Otherwise the XML is loaded as usual and the cache file rewritten. XML that imports other
+ * files, or produces definitions {@link BeanDefinitionCache} cannot store, is never cached.
+ */
+public final class CachedXmlApplicationContext extends AbstractXmlApplicationContext {
+
+    private final Path cacheFile;
+    private boolean importsFound;
+    private boolean loadedFromCache;
+
+    public CachedXmlApplicationContext(Path cacheFile, String... configLocations) {
+        this.cacheFile = cacheFile;
+        setConfigLocations(configLocations);
+        refresh();
+    }
+
+    @Override
+    protected void loadBeanDefinitions(DefaultListableBeanFactory beanFactory) throws BeansException, IOException {
+        byte[] hash = hashConfigLocations();
+        try {
+            loadedFromCache = BeanDefinitionCache.read(cacheFile, hash, beanFactory);
+        } catch (IOException e) {
+            System.out.println("Ignoring unreadable bean definition cache " + cacheFile + ": " + e);
+            loadedFromCache = false;
+        }
+        if (loadedFromCache) {
+            return;
+        }
+
+        importsFound = false;
+        super.loadBeanDefinitions(beanFactory);
+        if (importsFound) {
+            System.out.println("Not caching bean definitions: the XML imports other files.");
+            return;
+        }
+        try {
+            BeanDefinitionCache.write(cacheFile, hash, beanFactory);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Not caching bean definitions: " + e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    protected void initBeanDefinitionReader(XmlBeanDefinitionReader reader) {
+        super.initBeanDefinitionReader(reader);
+        // The hash only covers the config locations themselves
+        reader.setEventListener(new EmptyReaderEventListener() {
+            @Override
+            public void importProcessed(ImportDefinition importDefinition) {
+                importsFound = true;
+            }
+        });
+    }
+
+    private byte[] hashConfigLocations() throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(String.valueOf(SpringVersion.getVersion()).getBytes(StandardCharsets.UTF_8));
+        for (String location : getConfigLocations()) {
+            for (Resource resource : getResources(location)) {
+                digest.update(resource.getDescription().getBytes(StandardCharsets.UTF_8));
+                digest.update(resource.getContentAsByteArray());
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * @return whether the last refresh read the bean definitions from the cache file
+     */
+    public boolean isLoadedFromCache() {
+        return loadedFromCache;
+    }
+}
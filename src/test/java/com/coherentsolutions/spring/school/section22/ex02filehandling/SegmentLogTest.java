@@ -0,0 +1,89 @@
+package com.coherentsolutions.spring.school.section22.ex02filehandling;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SegmentLogTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopensAfterTheLastRecordWithoutLosingAny() throws IOException {
+        append("alpha", "beta", "gamma");
+
+        SegmentLog log = open();
+        log.append("delta").join();
+        assertEquals(List.of("alpha", "beta", "gamma", "delta"), readAll(log));
+        log.close();
+    }
+
+    @Test
+    void dropsATornLastRecordAndAppendsInItsPlace() throws IOException {
+        append("alpha", "beta", "gamma");
+        // [int length][int crc][payload]: gamma starts after 8 + 5 and 8 + 4 bytes; flip one payload byte
+        overwrite(8 + 5 + 8 + 4 + 8 + 2, (byte) 'X');
+
+        SegmentLog log = open();
+        assertEquals(List.of("alpha", "beta"), readAll(log));
+
+        log.append("delta").join();
+        assertEquals(List.of("alpha", "beta", "delta"), readAll(log));
+        log.close();
+
+        assertEquals(List.of("alpha", "beta", "delta"), readAll(open()));
+    }
+
+    @Test
+    void ignoresALengthWrittenWithoutItsPayload() throws IOException {
+        append("alpha");
+        // A length past the last record, as if the process died before the payload reached the file
+        overwrite(8 + 5, (byte) 0, (byte) 0, (byte) 0, (byte) 16);
+
+        SegmentLog log = open();
+        assertEquals(List.of("alpha"), readAll(log));
+
+        log.append("beta").join();
+        log.close();
+        assertEquals(List.of("alpha", "beta"), readAll(open()));
+    }
+
+    private void append(String... lines) throws IOException {
+        SegmentLog log = open();
+        for (String line : lines) {
+            log.append(line).join();
+        }
+        log.close();
+    }
+
+    private SegmentLog open() throws IOException {
+        SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.open();
+        return log;
+    }
+
+    private void overwrite(long position, byte... bytes) throws IOException {
+        Path segment = open().getSegmentIndex().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+
+    private static List<String> readAll(SegmentLog log) throws IOException {
+        List<String> lines = new ArrayList<>();
+        log.readAll(lines::add);
+        return lines;
+    }
+}
@@ -0,0 +1,84 @@
+package com.coherentsolutions.spring.school.section33.execution;
+
+import com.coherentsolutions.spring.school.section33.services.ProcessingService;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DispatchTableTest {
+
+    @Test
+    void findsEveryNameInItsOwnSlot() {
+        Map<String, ProcessingService> source = services(500);
+        DispatchTable table = new DispatchTable(source);
+
+        Set<Integer> handles = new HashSet<>();
+        source.forEach((name, service) -> {
+            int handle = table.handleOf(name);
+            assertTrue(handle >= 0 && handle < source.size(), name + " -> " + handle);
+            assertTrue(handles.add(handle), "handle " + handle + " given out twice");
+            assertSame(service, table.get(name));
+            assertSame(service, table.get(handle));
+        });
+        assertEquals(source.size(), table.size());
+        assertEquals(0, table.getMissCount());
+    }
+
+    @Test
+    void unknownNamesNeverHitAService() {
+        DispatchTable table = new DispatchTable(services(500));
+
+        int unknown = 100_000;
+        for (int i = 0; i < unknown; i++) {
+            String name = "unknown" + i;
+            assertEquals(-1, table.handleOf(name), name);
+        }
+        // Same prefix, one character longer or shorter, and a different case
+        assertNull(table.get("service1000"));
+        assertNull(table.get("servic1"));
+        assertNull(table.get("Service1"));
+        assertNull(table.get(""));
+        assertEquals(unknown + 4, table.getMissCount());
+    }
+
+    @Test
+    void emptyTableHasNoHits() {
+        DispatchTable table = new DispatchTable(Map.of());
+
+        assertEquals(0, table.size());
+        assertNull(table.get("service1"));
+        assertEquals(1, table.getMissCount());
+    }
+
+    @Test
+    void rejectsNamesWithEqualHashCodes() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        Map<String, ProcessingService> source = Map.of("Aa", new NoOpService(), "BB", new NoOpService());
+
+        assertThrows(IllegalArgumentException.class, () -> new DispatchTable(source));
+    }
+
+    private static Map<String, ProcessingService> services(int count) {
+        Map<String, ProcessingService> services = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            services.put("service" + i, new NoOpService());
+        }
+        return services;
+    }
+
+    // A class rather than a lambda, so that every service is a distinct instance
+    private static final class NoOpService implements ProcessingService {
+        @Override
+        public void process() {
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.coherentsolutions.spring.school.support.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscRingBufferTest {
+
+    @Test
+    void rejectsCapacityThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(12));
+    }
+
+    @Test
+    void refusesOffersWhenFullUntilDrained() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, buffer.drain(drained::add, 2));
+        assertTrue(buffer.offer(4));
+        assertTrue(buffer.offer(5));
+        assertEquals(4, buffer.drain(drained::add, Integer.MAX_VALUE));
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), drained);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void keepsEveryProducersOrderAcrossManyWraparounds() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long sequence = 0; sequence < perProducer; sequence++) {
+                    long[] element = {producer, sequence};
+                    // Yield rather than spin, so the consumer gets to run even on a single core
+                    while (!buffer.offer(element)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        long[] nextSequence = new long[producers];
+        int total = 0;
+        while (total < producers * perProducer) {
+            int drained = buffer.drain(element -> {
+                int producer = (int) element[0];
+                assertEquals(nextSequence[producer], element[1], "out of order for producer " + producer);
+                nextSequence[producer]++;
+            }, 16);
+            if (drained == 0) {
+                Thread.yield();
+            }
+            total += drained;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int p = 0; p < producers; p++) {
+            assertEquals(perProducer, nextSequence[p]);
+        }
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.drain(element -> { }, 16));
+    }
+}
@@ -0,0 +1,92 @@
+package com.coherentsolutions.spring.school.support.xml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeanDefinitionCacheTest {
+
+    private static final byte[] HASH = "first".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OTHER_HASH = "second".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackTheDefinitionsAndAliasesItWrote() throws IOException {
+        DefaultListableBeanFactory parsed = parseXml();
+        Path file = directory.resolve("definitions.bin");
+        BeanDefinitionCache.write(file, HASH, parsed);
+
+        DefaultListableBeanFactory cached = new DefaultListableBeanFactory();
+        assertTrue(BeanDefinitionCache.read(file, HASH, cached));
+
+        assertArrayEquals(parsed.getBeanDefinitionNames(), cached.getBeanDefinitionNames());
+        for (String name : parsed.getBeanDefinitionNames()) {
+            assertEquals(parsed.getBeanDefinition(name), cached.getBeanDefinition(name), name);
+            assertArrayEquals(parsed.getAliases(name), cached.getAliases(name), name);
+        }
+        assertEquals("hello", cached.getBean("salutation"));
+        assertEquals(List.of("a", "hello"), cached.getBean("names"));
+    }
+
+    @Test
+    void ignoresAFileWrittenForAnotherHash() throws IOException {
+        Path file = directory.resolve("definitions.bin");
+        BeanDefinitionCache.write(file, HASH, parseXml());
+
+        DefaultListableBeanFactory cached = new DefaultListableBeanFactory();
+        assertFalse(BeanDefinitionCache.read(file, OTHER_HASH, cached));
+        assertEquals(0, cached.getBeanDefinitionCount());
+    }
+
+    @Test
+    void ignoresAMissingFile() throws IOException {
+        DefaultListableBeanFactory cached = new DefaultListableBeanFactory();
+        assertFalse(BeanDefinitionCache.read(directory.resolve("missing.bin"), HASH, cached));
+        assertEquals(0, cached.getBeanDefinitionCount());
+    }
+
+    @Test
+    void leavesTheFileAsItWasWhenADefinitionCannotBeStored() throws IOException {
+        Path file = directory.resolve("definitions.bin");
+        BeanDefinitionCache.write(file, HASH, parseXml());
+        byte[] written = Files.readAllBytes(file);
+
+        DefaultListableBeanFactory unsupported = parseXml();
+        GenericBeanDefinition withMap = new GenericBeanDefinition();
+        withMap.setBeanClass(HashMap.class);
+        withMap.getConstructorArgumentValues().addGenericArgumentValue(new ManagedMap<>());
+        unsupported.registerBeanDefinition("map", withMap);
+
+        assertThrows(IllegalArgumentException.class, () -> BeanDefinitionCache.write(file, OTHER_HASH, unsupported));
+        assertArrayEquals(written, Files.readAllBytes(file));
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    private static DefaultListableBeanFactory parseXml() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        new XmlBeanDefinitionReader(beanFactory)
+                .loadBeanDefinitions(new ClassPathResource("definitions.xml", BeanDefinitionCacheTest.class));
+        return beanFactory;
+    }
+}